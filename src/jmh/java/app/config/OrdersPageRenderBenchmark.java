@@ -0,0 +1,127 @@
+package app.config;
+
+import app.dto.UserDTO;
+import app.entities.Order;
+import app.entities.User;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.openjdk.jmh.annotations.*;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Renders orders.html for an admin with a full page of orders, using the production template
+ * engine from ThymeleafConfig. The page needs a web context for links and the session, so the
+ * servlet request, response and session are stand-ins that answer what Thymeleaf asks for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrdersPageRenderBenchmark
+{
+    private static final int ORDERS_PER_STATUS = 25;
+
+    private TemplateEngine templateEngine;
+    private IWebExchange exchange;
+    private Map<String, Object> model;
+
+    @Setup
+    public void setUp()
+    {
+        templateEngine = ThymeleafConfig.templateEngine(true, StaticAssets.load());
+
+        User admin = new User(1, "Admin", "Adminsen", "admin@olskercupcakes.dk", 12345678, "Olsker 1", 3770, "Allinge", 0, true, false);
+        Map<String, Object> sessionAttributes = new HashMap<>(Map.of("currentUser", admin));
+        ServletContext servletContext = stub(ServletContext.class, Map.of(), Map.of());
+        HttpSession session = stub(HttpSession.class, sessionAttributes, Map.of());
+        HttpServletRequest request = stub(HttpServletRequest.class, Map.of(),
+                Map.of("getSession", session, "getServletContext", servletContext));
+        HttpServletResponse response = stub(HttpServletResponse.class, Map.of(), Map.of());
+        exchange = JakartaServletWebApplication.buildApplication(servletContext).buildExchange(request, response);
+
+        model = new HashMap<>();
+        model.put("unpaidOrders", orders(1, false));
+        model.put("paidOrders", orders(ORDERS_PER_STATUS + 1, true));
+        model.put("pagePath", "/orders");
+        model.put("isFirstPage", true);
+        model.put("nextBeforeDate", LocalDateTime.of(2025, 1, 1, 12, 0));
+        model.put("nextBeforeId", 1);
+    }
+
+    @Benchmark
+    public String renderOrdersPage()
+    {
+        StringWriter writer = new StringWriter(64 * 1024);
+        templateEngine.process("orders", new WebContext(exchange, Locale.getDefault(), model), writer);
+        return writer.toString();
+    }
+
+    private List<Order> orders(int firstOrderId, boolean paid)
+    {
+        List<Order> orders = new ArrayList<>();
+        LocalDateTime orderDate = LocalDateTime.of(2025, 6, 1, 10, 0);
+        for (int i = 0; i < ORDERS_PER_STATUS; i++)
+        {
+            int orderId = firstOrderId + i;
+            UserDTO customer = new UserDTO(orderId, "Kunde" + orderId, "Efternavn", "kunde" + orderId + "@mail.dk",
+                    20000000 + orderId, "Gade " + orderId, 3700, "Rønne", 10000);
+            orders.add(new Order(orderId, customer, orderDate.minusHours(i), orderDate.plusDays(2), paid, List.of(), 1250 + i * 100));
+        }
+        return orders;
+    }
+
+    /***
+     * Methods named in returns answer with that object, attribute lookups are answered from
+     * attributes, URLs are returned unchanged and everything else gets its type's default value.
+     */
+    private static <T> T stub(Class<T> type, Map<String, Object> attributes, Map<String, Object> returns)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                returns.containsKey(method.getName()) ? returns.get(method.getName()) : switch (method.getName())
+                {
+                    case "getAttribute" -> attributes.get((String) args[0]);
+                    case "getAttributeNames", "getParameterNames", "getHeaderNames" -> Collections.enumeration(attributes.keySet());
+                    case "getParameterMap" -> Map.of();
+                    case "getContextPath" -> "";
+                    case "getRequestURI", "getServletPath" -> "/orders";
+                    case "encodeURL", "encodeRedirectURL" -> args[0];
+                    case "getLocale" -> Locale.getDefault();
+                    case "getCharacterEncoding" -> "UTF-8";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> type.getSimpleName();
+                    default -> defaultValue(method.getReturnType());
+                }));
+    }
+
+    private static Object defaultValue(Class<?> returnType)
+    {
+        if (returnType == boolean.class)
+        {
+            return false;
+        }
+        if (returnType == int.class || returnType == long.class)
+        {
+            return returnType == int.class ? (Object) 0 : (Object) 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package app.entities;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Slugs and image paths are computed when a flavour is built or renamed, so templates only
+ * read fields. getSlug() should stay a field read; building a flavour pays for slugOf().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlavourSlugBenchmark
+{
+    private static final String[] NAMES = {"Chokolade", "Vanilje", "Muskatnød", "Pistacie", "Mandel",
+            "Blåbær", "Hindbær", "Rom/Rosin", "Blåskimmelost"};
+
+    private Bottom[] bottoms;
+
+    @Setup
+    public void setUp()
+    {
+        bottoms = new Bottom[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            bottoms[i] = new Bottom(i + 1, NAMES[i], 500);
+        }
+    }
+
+    @Benchmark
+    public void getSlug(Blackhole blackhole)
+    {
+        for (Bottom bottom : bottoms)
+        {
+            blackhole.consume(bottom.getSlug());
+            blackhole.consume(bottom.getImage());
+        }
+    }
+
+    @Benchmark
+    public void slugOf(Blackhole blackhole)
+    {
+        for (String name : NAMES)
+        {
+            blackhole.consume(FlavourImages.slugOf(name));
+        }
+    }
+
+    @Benchmark
+    public void buildFlavours(Blackhole blackhole)
+    {
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            blackhole.consume(new Bottom(i + 1, NAMES[i], 500));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package app.entities;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Filling a cart with distinct cupcakes, adding to lines that are already there, and reading
+ * the totals the basket and header show on every page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark
+{
+    @Param({"10", "45"})
+    private int distinctCupcakes;
+
+    private List<Cupcake> cupcakes;
+    private ShoppingCart fullCart;
+
+    @Setup
+    public void setUp()
+    {
+        cupcakes = new ArrayList<>();
+        for (int bottomId = 1; cupcakes.size() < distinctCupcakes; bottomId++)
+        {
+            for (int toppingId = 1; toppingId <= 9 && cupcakes.size() < distinctCupcakes; toppingId++)
+            {
+                cupcakes.add(new Cupcake(new Bottom(bottomId, "Bund " + bottomId, 500), new Topping(toppingId, "Topping " + toppingId, 600)));
+            }
+        }
+
+        fullCart = new ShoppingCart();
+        for (Cupcake cupcake : cupcakes)
+        {
+            fullCart.addOrderLineToCart(cupcake, 2);
+        }
+    }
+
+    @Benchmark
+    public ShoppingCart fillEmptyCart()
+    {
+        ShoppingCart cart = new ShoppingCart();
+        for (Cupcake cupcake : cupcakes)
+        {
+            cart.addOrderLineToCart(cupcake, 1);
+        }
+        return cart;
+    }
+
+    @Benchmark
+    public long addToExistingLines()
+    {
+        for (Cupcake cupcake : cupcakes)
+        {
+            fullCart.addOrderLineToCart(cupcake, 1);
+        }
+        return fullCart.getTotalOrderPrice();
+    }
+
+    @Benchmark
+    public long totals()
+    {
+        return fullCart.getTotalOrderPrice() + fullCart.getTotalOrderQuantitiy();
+    }
+
+    @Benchmark
+    public String formattedTotal()
+    {
+        return fullCart.getFormattedTotalOrderPrice();
+    }
+}
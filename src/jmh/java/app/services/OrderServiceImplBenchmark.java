@@ -0,0 +1,69 @@
+package app.services;
+
+import app.dto.UserDTO;
+import app.entities.Order;
+import app.persistence.OrderMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * The in-memory filters of OrderServiceImpl over large order lists. getAllOrdersByStatus reads
+ * from a mapper that returns a prepared list, so only the filtering and sorting is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceImplBenchmark
+{
+    @Param({"1000", "100000"})
+    private int orderCount;
+
+    private List<Order> orders;
+    private OrderServiceImpl orderService;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        orders = new ArrayList<>(orderCount);
+        for (int i = 1; i <= orderCount; i++)
+        {
+            int userId = random.nextInt(5000);
+            UserDTO user = new UserDTO(userId, "Kunde" + userId, "Efternavn" + userId, "kunde" + userId + "@mail.dk",
+                    20000000 + userId, "Gade " + userId, 3700, "Rønne", 10000);
+            LocalDateTime orderDate = start.plusMinutes(random.nextInt(60 * 24 * 365));
+            orders.add(new Order(i, user, orderDate, orderDate.plusDays(2), random.nextBoolean(), List.of(), 500 + random.nextInt(10000)));
+        }
+
+        OrderMapper orderMapper = new OrderMapper(null, null)
+        {
+            @Override
+            public List<Order> getAllOrders()
+            {
+                return orders;
+            }
+        };
+        orderService = new OrderServiceImpl(orderMapper, null, null, null);
+    }
+
+    @Benchmark
+    public List<Order> sortOrdersByPaymentStatus()
+    {
+        return orderService.sortOrdersByPaymentStatus(orders, true);
+    }
+
+    @Benchmark
+    public List<Order> getAllOrdersByStatus() throws Exception
+    {
+        return orderService.getAllOrdersByStatus(false);
+    }
+}
@@ -0,0 +1,89 @@
+package app.services;
+
+import app.dto.CreateUserRequestDTO;
+import app.dto.UserDTO;
+import app.entities.User;
+import app.persistence.UserMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * The validation regexes in UserServiceImpl, and the user searches that filter every user in
+ * memory. The rejected registration has a one letter city, so every other check, including
+ * the email and password regexes, runs before it fails and no password is hashed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceImplBenchmark
+{
+    @Param({"10000"})
+    private int userCount;
+
+    private UserServiceImpl userService;
+    private CreateUserRequestDTO rejectedRegistration;
+
+    @Setup
+    public void setUp()
+    {
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 1; i <= userCount; i++)
+        {
+            users.add(new User(i, "Kunde" + i, "Efternavn" + i, "kunde" + i + "@mail.dk", 20000000 + i,
+                    "Gade " + i, 3700, "Rønne", 10000, false, false));
+        }
+
+        UserMapper userMapper = new UserMapper(null)
+        {
+            @Override
+            public List<User> getAllUsers()
+            {
+                return users;
+            }
+        };
+        // nothing measured here hashes a password, so no PasswordHasher and its thread pool
+        userService = new UserServiceImpl(userMapper, null, new LoginRateLimiter());
+        rejectedRegistration = new CreateUserRequestDTO("kunde@mail.dk", "Password1", "Password1", "Kunde",
+                "Efternavn", "Gade 1", "R", "3700", "20000000");
+    }
+
+    @Benchmark
+    public void validateInput()
+    {
+        userService.validateInput("Kunde", "Efternavn", "Gade 1", 3700, "Rønne", 20000000, "kunde@mail.dk");
+    }
+
+    @Benchmark
+    public String rejectRegistration() throws Exception
+    {
+        try
+        {
+            userService.registerUser(rejectedRegistration);
+            return null;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<UserDTO> searchUsersByName() throws Exception
+    {
+        return userService.searchUsersByName("unde99");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<UserDTO> searchUsersByEmail() throws Exception
+    {
+        return userService.searchUsersByEmail("kunde12");
+    }
+}
@@ -0,0 +1,292 @@
+package app.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * The database behind the load test. When JDBC_CONNECTION_STRING is set the same JDBC_* variables
+ * as the application are used, so any local PostgreSQL works. Otherwise an embedded PostgreSQL is
+ * started with its data in target/load-pgdata, which survives between runs so the seed is only
+ * written once. The schema comes from script.sql and the seed is generated in SQL, so a million
+ * orders take seconds instead of a million round trips.
+ */
+public class LoadDatabase implements AutoCloseable
+{
+    public static final String PASSWORD = "Cupcake123";
+    public static final String[] FIRST_NAMES = {"Anna", "Mikkel", "Sofie", "Frederik", "Emma", "Lucas", "Ida", "Oliver", "Freja", "William"};
+    public static final String[] LAST_NAMES = {"Jensen", "Nielsen", "Hansen", "Pedersen", "Andersen", "Christensen", "Larsen", "Sørensen", "Rasmussen", "Jørgensen"};
+
+    private static final String EMBEDDED_DB = "cupcake";
+    private static final String EMBEDDED_USER = "postgres";
+
+    private final EmbeddedPostgres embeddedPostgres;
+    private final String user;
+    private final String password;
+    private final String connectionString;
+    private final String db;
+
+    private LoadDatabase(EmbeddedPostgres embeddedPostgres, String user, String password, String connectionString, String db)
+    {
+        this.embeddedPostgres = embeddedPostgres;
+        this.user = user;
+        this.password = password;
+        this.connectionString = connectionString;
+        this.db = db;
+    }
+
+    public static LoadDatabase start(Path dataDirectory) throws IOException, SQLException
+    {
+        String connectionString = System.getenv("JDBC_CONNECTION_STRING");
+        if (connectionString != null && !connectionString.isBlank())
+        {
+            System.out.println("Using the database from JDBC_CONNECTION_STRING");
+            return new LoadDatabase(null, System.getenv("JDBC_USER"), System.getenv("JDBC_PASSWORD"), connectionString, System.getenv("JDBC_DB"));
+        }
+
+        System.out.println("Starting embedded PostgreSQL in " + dataDirectory);
+        EmbeddedPostgres embeddedPostgres = EmbeddedPostgres.builder()
+                .setDataDirectory(dataDirectory)
+                .setCleanDataDirectory(false)
+                .setServerConfig("max_connections", "200")
+                .setServerConfig("shared_buffers", "256MB")
+                .setServerConfig("fsync", "off")
+                .setServerConfig("shared_preload_libraries", "pg_stat_statements")
+                .start();
+
+        try (Connection connection = embeddedPostgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement())
+        {
+            ResultSet resultSet = statement.executeQuery("SELECT 1 FROM pg_database WHERE datname = '" + EMBEDDED_DB + "'");
+            if (!resultSet.next())
+            {
+                statement.execute("CREATE DATABASE " + EMBEDDED_DB);
+            }
+        }
+
+        String embeddedConnectionString = "jdbc:postgresql://localhost:" + embeddedPostgres.getPort() + "/%s?currentSchema=public";
+        LoadDatabase database = new LoadDatabase(embeddedPostgres, EMBEDDED_USER, EMBEDDED_USER, embeddedConnectionString, EMBEDDED_DB);
+        try (Connection connection = database.connect(); Statement statement = connection.createStatement())
+        {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+        }
+        return database;
+    }
+
+    public Connection connect() throws SQLException
+    {
+        return DriverManager.getConnection(String.format(connectionString, db), user, password);
+    }
+
+    /***
+     * Runs script.sql unless the tables are there already. The script is not idempotent for its
+     * sample orders, so it is only run once per database.
+     */
+    public void createSchema() throws IOException, SQLException
+    {
+        try (Connection connection = connect(); Statement statement = connection.createStatement())
+        {
+            ResultSet resultSet = statement.executeQuery("SELECT to_regclass('public.users') IS NOT NULL");
+            resultSet.next();
+            if (resultSet.getBoolean(1))
+            {
+                return;
+            }
+
+            System.out.println("Creating schema from script.sql");
+            try (InputStream script = LoadDatabase.class.getResourceAsStream("/sql/script.sql"))
+            {
+                if (script == null)
+                {
+                    throw new IOException("sql/script.sql is not on the classpath");
+                }
+                statement.execute(new String(script.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /***
+     * Customers are kunde{n}@load.dk and admins admin{n}@load.dk, all with PASSWORD. Only what is
+     * missing is inserted, so running again with the same numbers is a no-op and larger numbers
+     * add to the existing seed.
+     */
+    public void seed(int customers, int admins, int orders) throws SQLException
+    {
+        String hashedPassword = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        try (Connection connection = connect())
+        {
+            long start = System.nanoTime();
+            int insertedUsers = insertUsers(connection, "kunde", customers, false, hashedPassword)
+                    + insertUsers(connection, "admin", admins, true, hashedPassword);
+            int insertedOrders = insertOrders(connection, customers, orders);
+            if (insertedUsers + insertedOrders > 0)
+            {
+                try (Statement statement = connection.createStatement())
+                {
+                    statement.execute("VACUUM ANALYZE");
+                }
+            }
+            System.out.printf("Seeded %d users and %d orders in %.1f s%n", insertedUsers, insertedOrders, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /***
+     * The number of statements the server has run in this database, from pg_stat_statements, so
+     * a benchmark can count what the code it measures sends. The embedded database has the
+     * extension; another database needs it installed, otherwise this returns -1. The count
+     * includes the earlier calls of this method, so take the difference of two calls with nothing
+     * in between as the baseline.
+     */
+    public long countStatements()
+    {
+        String sql = "SELECT coalesce(sum(calls), 0) FROM pg_stat_statements " +
+                "WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database())";
+        try (Connection connection = connect(); Statement statement = connection.createStatement())
+        {
+            ResultSet resultSet = statement.executeQuery(sql);
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+        catch (SQLException e)
+        {
+            return -1;
+        }
+    }
+
+    public List<Integer> getIds(String sql) throws SQLException
+    {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = connect(); Statement statement = connection.createStatement())
+        {
+            ResultSet resultSet = statement.executeQuery(sql);
+            while (resultSet.next())
+            {
+                ids.add(resultSet.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
+    public String getPassword()
+    {
+        return password;
+    }
+
+    public String getConnectionString()
+    {
+        return connectionString;
+    }
+
+    public String getDb()
+    {
+        return db;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (embeddedPostgres != null)
+        {
+            embeddedPostgres.close();
+        }
+    }
+
+    private int insertUsers(Connection connection, String prefix, int count, boolean admin, String hashedPassword) throws SQLException
+    {
+        String sql = """
+                INSERT INTO public.users (firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest)
+                SELECT (?::varchar[])[1 + i % 10], (?::varchar[])[1 + i / 10 % 10], ? || i || '@load.dk', ?,
+                       20000000 + i, 'Storegade ' || (1 + i % 200), (ARRAY[3700, 3720, 3730, 3740, 3751, 3760, 3770, 3782, 3790])[1 + i % 9],
+                       100000000, ?, FALSE
+                FROM generate_series(1, ?) i
+                ON CONFLICT (email) DO NOTHING""";
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setArray(1, connection.createArrayOf("varchar", FIRST_NAMES));
+            ps.setArray(2, connection.createArrayOf("varchar", LAST_NAMES));
+            ps.setString(3, prefix);
+            ps.setString(4, hashedPassword);
+            ps.setBoolean(5, admin);
+            ps.setInt(6, count);
+            return ps.executeUpdate();
+        }
+    }
+
+    /***
+     * Orders are spread over the customers and the last two years, each with two order lines.
+     */
+    private int insertOrders(Connection connection, int customers, int orders) throws SQLException
+    {
+        int existingOrders;
+        int lastOrderId;
+        try (Statement statement = connection.createStatement())
+        {
+            ResultSet resultSet = statement.executeQuery("SELECT count(*), coalesce(max(order_id), 0) FROM public.orders");
+            resultSet.next();
+            existingOrders = resultSet.getInt(1);
+            lastOrderId = resultSet.getInt(2);
+        }
+        if (existingOrders >= orders)
+        {
+            return 0;
+        }
+
+        String orderSql = """
+                INSERT INTO public.orders (user_id, order_date, pickup_date, paid, price_total)
+                SELECT u.user_id, o.order_date, o.order_date + interval '2 day', o.i % 4 <> 0, 2000 + (o.i % 10) * 200
+                FROM (SELECT i, now() - (i % 1051200) * interval '1 minute' AS order_date, 'kunde' || (1 + i % ?) || '@load.dk' AS email
+                      FROM generate_series(1, ?) i) o
+                JOIN public.users u ON u.email = o.email""";
+
+        String orderLineSql = """
+                WITH t AS (SELECT array_agg(topping_id ORDER BY topping_id) AS ids FROM public.toppings),
+                     b AS (SELECT array_agg(bottom_id ORDER BY bottom_id) AS ids FROM public.bottoms)
+                INSERT INTO public.orderlines (order_id, topping_id, bottom_id, quantity, orderline_price)
+                SELECT o.order_id, t.ids[1 + (o.order_id + n) % cardinality(t.ids)], b.ids[1 + (o.order_id + 3 * n) % cardinality(b.ids)],
+                       1, o.price_total / 2
+                FROM public.orders o CROSS JOIN generate_series(0, 1) n CROSS JOIN t CROSS JOIN b
+                WHERE o.order_id > ?""";
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement orderStatement = connection.prepareStatement(orderSql);
+             PreparedStatement orderLineStatement = connection.prepareStatement(orderLineSql))
+        {
+            orderStatement.setInt(1, customers);
+            orderStatement.setInt(2, orders - existingOrders);
+            int inserted = orderStatement.executeUpdate();
+
+            orderLineStatement.setInt(1, lastOrderId);
+            orderLineStatement.executeUpdate();
+            connection.commit();
+            return inserted;
+        }
+        catch (SQLException e)
+        {
+            connection.rollback();
+            throw e;
+        }
+        finally
+        {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
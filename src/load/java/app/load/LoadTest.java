@@ -0,0 +1,330 @@
+package app.load;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+/***
+ * End-to-end load test: seeds a PostgreSQL database, starts app.Main in its own JVM against it and
+ * runs virtual users in stages of increasing concurrency. Each virtual user repeats one of three
+ * flows, picked by LOAD_MIX: a guest who shops and checks out, a customer who logs in, looks at
+ * the order history and checks out, and an admin who pages through orders and customers. The
+ * latencies of every route are reported per stage as p50, p99 and requests per second, and are
+ * appended to target/load-report.csv so runs before and after a change can be compared.
+ *
+ * Run it with mvn -Pload compile exec:exec. The settings are environment variables:
+ * LOAD_USERS (100000), LOAD_ADMINS (100), LOAD_ORDERS (1000000), LOAD_CLIENTS (50,200,1000),
+ * LOAD_DURATION_SECONDS (60), LOAD_WARMUP_SECONDS (30), LOAD_MIX (70,20,10), LOAD_THINK_MS (0),
+ * LOAD_TIMEOUT_SECONDS (60) and LOAD_APP_JAVA_OPTS for the JVM options of the application.
+ */
+public class LoadTest
+{
+    private static final int APP_PORT = 7070;
+    private static final String BASE_URL = "http://localhost:" + APP_PORT;
+    private static final Path TARGET = Path.of("target");
+    private static final Path REPORT = TARGET.resolve("load-report.csv");
+
+    public static void main(String[] args) throws Exception
+    {
+        int customers = getEnvInt("LOAD_USERS", 100_000);
+        int admins = getEnvInt("LOAD_ADMINS", 100);
+        int orders = getEnvInt("LOAD_ORDERS", 1_000_000);
+        int[] clientStages = getEnvInts("LOAD_CLIENTS", new int[]{50, 200, 1000});
+        int[] mix = getEnvInts("LOAD_MIX", new int[]{70, 20, 10});
+        if (mix.length != 3)
+        {
+            throw new IllegalArgumentException("LOAD_MIX needs three weights: guests, customers, admins");
+        }
+        Duration duration = Duration.ofSeconds(getEnvInt("LOAD_DURATION_SECONDS", 60));
+        Duration warmUp = Duration.ofSeconds(getEnvInt("LOAD_WARMUP_SECONDS", 30));
+        long thinkMillis = getEnvInt("LOAD_THINK_MS", 0);
+        Duration requestTimeout = Duration.ofSeconds(getEnvInt("LOAD_TIMEOUT_SECONDS", 60));
+
+        checkPortIsFree();
+        checkFileDescriptors(Arrays.stream(clientStages).max().orElse(0));
+        Files.createDirectories(TARGET);
+
+        try (LoadDatabase database = LoadDatabase.start(TARGET.resolve("load-pgdata").toAbsolutePath()))
+        {
+            database.createSchema();
+            database.seed(customers, admins, orders);
+            List<Integer> bottomIds = database.getIds("SELECT bottom_id FROM public.bottoms ORDER BY bottom_id");
+            List<Integer> toppingIds = database.getIds("SELECT topping_id FROM public.toppings ORDER BY topping_id");
+
+            Process app = startApp(database);
+            try
+            {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .followRedirects(HttpClient.Redirect.NEVER)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                awaitApp(httpClient, app);
+
+                Stage stage = new Stage(httpClient, bottomIds, toppingIds, customers, admins, mix, thinkMillis, requestTimeout);
+                if (!warmUp.isZero())
+                {
+                    System.out.printf("Warming up with %d clients for %d s%n", clientStages[0], warmUp.toSeconds());
+                    stage.run(clientStages[0], warmUp);
+                }
+                for (int clients : clientStages)
+                {
+                    System.out.printf("Running %d clients for %d s%n", clients, duration.toSeconds());
+                    report(clients, stage.run(clients, duration));
+                }
+            }
+            finally
+            {
+                app.destroy();
+                app.waitFor();
+            }
+        }
+    }
+
+    /***
+     * Main listens on a fixed port, so an application that is already running would otherwise
+     * be measured instead of the one started here.
+     */
+    private static void checkPortIsFree() throws IOException
+    {
+        try (ServerSocket ignored = new ServerSocket(APP_PORT))
+        {
+            // free
+        }
+        catch (IOException e)
+        {
+            throw new IOException("Port " + APP_PORT + " is in use. Stop the running application before the load test", e);
+        }
+    }
+
+    /***
+     * Every client keeps a connection open, so at 1000 clients both this JVM and the application
+     * need more than 1000 file descriptors. The application inherits the limit of this process.
+     */
+    private static void checkFileDescriptors(int maxClients)
+    {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os
+                && os.getMaxFileDescriptorCount() < maxClients + 500L)
+        {
+            System.out.printf("Warning: %d clients need more than the %d open files allowed, raise it with ulimit -n%n",
+                    maxClients, os.getMaxFileDescriptorCount());
+        }
+    }
+
+    /***
+     * The application gets its own JVM, since Main reads its configuration from environment
+     * variables. It runs with DEPLOYED set, so templates are cached as in production, and inherits
+     * every other variable, e.g. USE_VIRTUAL_THREADS, DB_POOL_MAX_SIZE or SESSION_STORE.
+     */
+    private static Process startApp(LoadDatabase database) throws IOException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String javaOpts = System.getenv("LOAD_APP_JAVA_OPTS");
+        if (javaOpts != null && !javaOpts.isBlank())
+        {
+            command.addAll(Arrays.asList(javaOpts.trim().split("\\s+")));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "app.Main"));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(TARGET.resolve("load-app.log").toFile());
+        Map<String, String> environment = processBuilder.environment();
+        environment.put("DEPLOYED", "true");
+        environment.put("JDBC_USER", database.getUser());
+        environment.put("JDBC_PASSWORD", database.getPassword());
+        environment.put("JDBC_CONNECTION_STRING", database.getConnectionString());
+        environment.put("JDBC_DB", database.getDb());
+        environment.putIfAbsent("IMAGE_CACHE_DIR", TARGET.resolve("load-images").toAbsolutePath().toString());
+
+        System.out.println("Starting the application, log in target/load-app.log");
+        return processBuilder.start();
+    }
+
+    private static void awaitApp(HttpClient httpClient, Process app) throws IOException, InterruptedException
+    {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/")).GET().build();
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline)
+        {
+            if (!app.isAlive())
+            {
+                throw new IOException("The application stopped with exit code " + app.exitValue() + ", see target/load-app.log");
+            }
+            try
+            {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                {
+                    return;
+                }
+            }
+            catch (IOException e)
+            {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IOException("The application did not answer on " + BASE_URL + " within two minutes, see target/load-app.log");
+    }
+
+    private static void report(int clients, StageResult result) throws IOException
+    {
+        Map<String, RouteStats.Summary> summaries = result.routeStats().summarize(result.seconds());
+
+        System.out.printf("%n%d clients, %.1f s, %d flows completed, %d failed%n", clients, result.seconds(), result.completedFlows(), result.failedFlows());
+        System.out.printf("%-28s %9s %7s %9s %9s %9s %9s%n", "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        int requests = 0;
+        int errors = 0;
+        for (Map.Entry<String, RouteStats.Summary> entry : summaries.entrySet())
+        {
+            RouteStats.Summary summary = entry.getValue();
+            System.out.printf("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", entry.getKey(), summary.requests(), summary.errors(),
+                    summary.throughput(), summary.p50Millis(), summary.p99Millis(), summary.maxMillis());
+            requests += summary.requests();
+            errors += summary.errors();
+        }
+        System.out.printf("%-28s %9d %7d %9.1f%n%n", "total", requests, errors, requests / result.seconds());
+        saveFirstErrors(clients, result.routeStats());
+
+        boolean newReport = !Files.exists(REPORT);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(REPORT, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)))
+        {
+            if (newReport)
+            {
+                writer.println("timestamp,clients,route,requests,errors,requests_per_second,p50_ms,p99_ms,max_ms");
+            }
+            String timestamp = Instant.now().toString();
+            summaries.forEach((route, summary) -> writer.printf(Locale.ROOT, "%s,%d,%s,%d,%d,%.1f,%.2f,%.2f,%.2f%n",
+                    timestamp, clients, route, summary.requests(), summary.errors(), summary.throughput(),
+                    summary.p50Millis(), summary.p99Millis(), summary.maxMillis()));
+        }
+    }
+
+    /***
+     * The first failed response of each route, e.g. a form shown again with its error message,
+     * is written to target/load-errors so the cause of the errors in the report can be read.
+     */
+    private static void saveFirstErrors(int clients, RouteStats routeStats) throws IOException
+    {
+        Map<String, String> firstErrors = routeStats.getFirstErrors();
+        if (firstErrors.isEmpty())
+        {
+            return;
+        }
+
+        Path directory = Files.createDirectories(TARGET.resolve("load-errors"));
+        for (Map.Entry<String, String> entry : firstErrors.entrySet())
+        {
+            String fileName = clients + "-" + entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".txt";
+            Files.writeString(directory.resolve(fileName), entry.getValue());
+        }
+        System.out.println("First error of each failing route written to " + directory + "\n");
+    }
+
+    static int getEnvInt(String name, int defaultValue)
+    {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank())
+        {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    static int[] getEnvInts(String name, int[] defaultValue)
+    {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank())
+        {
+            return defaultValue;
+        }
+        return Arrays.stream(value.split(",")).mapToInt(part -> Integer.parseInt(part.trim())).toArray();
+    }
+
+    private record StageResult(RouteStats routeStats, double seconds, int completedFlows, int failedFlows)
+    {
+    }
+
+    /***
+     * Runs a number of virtual users, each on its own virtual thread, until the duration is up.
+     * Flows that are under way when time runs out are finished and included.
+     */
+    private record Stage(HttpClient httpClient, List<Integer> bottomIds, List<Integer> toppingIds, int customers, int admins,
+                         int[] mix, long thinkMillis, Duration requestTimeout)
+    {
+        StageResult run(int clients, Duration duration) throws InterruptedException
+        {
+            RouteStats routeStats = new RouteStats();
+            AtomicInteger completedFlows = new AtomicInteger();
+            AtomicInteger failedFlows = new AtomicInteger();
+            int mixTotal = Arrays.stream(mix).sum();
+
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                for (int i = 0; i < clients; i++)
+                {
+                    VirtualUser virtualUser = new VirtualUser(httpClient, BASE_URL, requestTimeout, routeStats, bottomIds, toppingIds,
+                            customers, admins, i + 1);
+                    executor.submit(() ->
+                    {
+                        while (System.nanoTime() < deadline)
+                        {
+                            if (runFlow(virtualUser, ThreadLocalRandom.current().nextInt(mixTotal)))
+                            {
+                                completedFlows.incrementAndGet();
+                            }
+                            else
+                            {
+                                failedFlows.incrementAndGet();
+                            }
+                            if (thinkMillis > 0)
+                            {
+                                Thread.sleep(thinkMillis);
+                            }
+                        }
+                        return null;
+                    });
+                }
+            }
+            return new StageResult(routeStats, (System.nanoTime() - start) / 1e9, completedFlows.get(), failedFlows.get());
+        }
+
+        private boolean runFlow(VirtualUser virtualUser, int pick) throws InterruptedException
+        {
+            if (pick < mix[0])
+            {
+                return virtualUser.guestFlow();
+            }
+            if (pick < mix[0] + mix[1])
+            {
+                return virtualUser.customerFlow();
+            }
+            return virtualUser.adminFlow();
+        }
+    }
+}
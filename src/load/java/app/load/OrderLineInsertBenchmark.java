@@ -0,0 +1,140 @@
+package app.load;
+
+import app.dto.UserDTO;
+import app.entities.Bottom;
+import app.entities.Cupcake;
+import app.entities.Order;
+import app.entities.OrderLine;
+import app.entities.Topping;
+import app.persistence.BottomMapper;
+import app.persistence.ConnectionPool;
+import app.persistence.OrderLineMapper;
+import app.persistence.OrderMapper;
+import app.persistence.ToppingMapper;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * Checkout commit latency by cart size. Each line count is run through OrderMapper.createOrder,
+ * which sends the lines as one batch, and through the insert as it was before the batch, one
+ * executeUpdate per line in the same kind of transaction. The orders are written to the load
+ * test database and deleted again at the end, so its seed is left as it was.
+ *
+ * Run it with mvn -Pload compile exec:exec -Dload.main=app.load.OrderLineInsertBenchmark.
+ * The settings are environment variables: BENCH_LINES (1,10,50,100,500), BENCH_WARMUP (50) and
+ * BENCH_ITERATIONS (200).
+ */
+public class OrderLineInsertBenchmark
+{
+    private static final String ORDER_SQL = "INSERT INTO orders (user_id, order_date, pickup_date, paid, price_total) VALUES (?, ?, ?, ?, ?)";
+    private static final String ORDER_LINE_SQL = "INSERT INTO orderlines (order_id, topping_id, bottom_id, quantity, orderline_price) VALUES (?, ?, ?, ?, ?)";
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] lineCounts = LoadTest.getEnvInts("BENCH_LINES", new int[]{1, 10, 50, 100, 500});
+        int warmUp = LoadTest.getEnvInt("BENCH_WARMUP", 50);
+        int iterations = LoadTest.getEnvInt("BENCH_ITERATIONS", 200);
+
+        try (LoadDatabase database = LoadDatabase.start(Path.of("target", "load-pgdata").toAbsolutePath()))
+        {
+            database.createSchema();
+            database.seed(1, 0, 0);
+            int userId = database.getIds("SELECT user_id FROM public.users WHERE email = 'kunde1@load.dk'").get(0);
+            int lastOrderId = database.getIds("SELECT coalesce(max(order_id), 0) FROM public.orders").get(0);
+
+            ConnectionPool connectionPool = ConnectionPool.getInstance(database.getUser(), database.getPassword(),
+                    database.getConnectionString(), database.getDb());
+            try
+            {
+                OrderMapper orderMapper = new OrderMapper(connectionPool, new OrderLineMapper(connectionPool));
+                List<Bottom> bottoms = new BottomMapper(connectionPool).getAllBottoms();
+                List<Topping> toppings = new ToppingMapper(connectionPool).getAllToppings();
+                UserDTO user = new UserDTO(userId, "Anna", "Jensen", "kunde1@load.dk", 20000001, "Storegade 2", 3720, null, 0);
+
+                StatementBenchmark benchmark = new StatementBenchmark(database, warmUp, iterations);
+                StatementBenchmark.printHeader("lines");
+                for (int lines : lineCounts)
+                {
+                    Order order = buildOrder(user, bottoms, toppings, lines);
+                    StatementBenchmark.print("batch", lines, benchmark.measure("batch", () -> orderMapper.createOrder(order)));
+                    StatementBenchmark.print("one by one", lines, benchmark.measure("one by one", () -> insertOneByOne(connectionPool, order)));
+                }
+            }
+            finally
+            {
+                try (Connection connection = database.connect(); Statement statement = connection.createStatement())
+                {
+                    statement.executeUpdate("DELETE FROM public.orders WHERE order_id > " + lastOrderId);
+                }
+                connectionPool.close();
+            }
+        }
+    }
+
+    /***
+     * Cycles through the catalog, so the lines are different cupcakes as in a catering order.
+     */
+    private static Order buildOrder(UserDTO user, List<Bottom> bottoms, List<Topping> toppings, int lines)
+    {
+        List<OrderLine> orderLines = new ArrayList<>();
+        long totalPrice = 0;
+        for (int i = 0; i < lines; i++)
+        {
+            Cupcake cupcake = new Cupcake(bottoms.get(i % bottoms.size()), toppings.get(i / bottoms.size() % toppings.size()));
+            OrderLine orderLine = new OrderLine(cupcake, 1 + i % 6);
+            orderLines.add(orderLine);
+            totalPrice += orderLine.getOrderLinePrice();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new Order(0, user, now, now.plusDays(2), false, orderLines, totalPrice);
+    }
+
+    /***
+     * The checkout insert as it was before the lines were batched.
+     */
+    private static void insertOneByOne(ConnectionPool connectionPool, Order order) throws SQLException
+    {
+        try (Connection connection = connectionPool.getConnection())
+        {
+            connection.setAutoCommit(false);
+            int orderId;
+            try (PreparedStatement ps = connection.prepareStatement(ORDER_SQL, Statement.RETURN_GENERATED_KEYS))
+            {
+                ps.setInt(1, order.getUserDTO().getUserId());
+                ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+                ps.setTimestamp(3, Timestamp.valueOf(order.getPickUpDate()));
+                ps.setBoolean(4, order.isPaid());
+                ps.setLong(5, order.getTotalPrice());
+                ps.executeUpdate();
+
+                ResultSet rs = ps.getGeneratedKeys();
+                rs.next();
+                orderId = rs.getInt(1);
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(ORDER_LINE_SQL))
+            {
+                for (OrderLine line : order.getOrderlines())
+                {
+                    ps.setInt(1, orderId);
+                    ps.setInt(2, line.getCupcake().getTopping().getToppingId());
+                    ps.setInt(3, line.getCupcake().getBottom().getBottomId());
+                    ps.setInt(4, line.getQuantity());
+                    ps.setLong(5, line.getOrderLinePrice());
+                    ps.executeUpdate();
+                }
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package app.load;
+
+import app.entities.OrderLine;
+import app.persistence.ConnectionPool;
+import app.persistence.OrderLineMapper;
+import app.persistence.OrderMapper;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * Reading orders with their lines on the seeded load test database. Each number of orders is
+ * read newest first through OrderMapper.getOrdersPage, which loads the lines of all orders in one
+ * query, and the way it was done before, one getOrderLinesByOrderId per order on a connection of
+ * its own. 51 orders is what the /orders page reads.
+ *
+ * Run it with mvn -Pload compile exec:exec -Dload.main=app.load.OrderPageBenchmark. The seed is
+ * the one of the load test, set with LOAD_USERS, LOAD_ADMINS and LOAD_ORDERS. BENCH_ORDERS
+ * (51,500,5000), BENCH_WARMUP (50) and BENCH_ITERATIONS (200) set the run.
+ */
+public class OrderPageBenchmark
+{
+    private static final String PAGE_SQL = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+            "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+            "u.admin, u.is_guest, z.city " +
+            "FROM orders o " +
+            "JOIN users u ON o.user_id = u.user_id " +
+            "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+            "ORDER BY o.order_date DESC, o.order_id DESC " +
+            "LIMIT ?";
+
+    public static void main(String[] args) throws Exception
+    {
+        int customers = LoadTest.getEnvInt("LOAD_USERS", 100_000);
+        int admins = LoadTest.getEnvInt("LOAD_ADMINS", 100);
+        int orders = LoadTest.getEnvInt("LOAD_ORDERS", 1_000_000);
+        int[] orderCounts = LoadTest.getEnvInts("BENCH_ORDERS", new int[]{51, 500, 5000});
+        int warmUp = LoadTest.getEnvInt("BENCH_WARMUP", 50);
+        int iterations = LoadTest.getEnvInt("BENCH_ITERATIONS", 200);
+
+        try (LoadDatabase database = LoadDatabase.start(Path.of("target", "load-pgdata").toAbsolutePath()))
+        {
+            database.createSchema();
+            database.seed(customers, admins, orders);
+
+            ConnectionPool connectionPool = ConnectionPool.getInstance(database.getUser(), database.getPassword(),
+                    database.getConnectionString(), database.getDb());
+            try
+            {
+                OrderLineMapper orderLineMapper = new OrderLineMapper(connectionPool);
+                OrderMapper orderMapper = new OrderMapper(connectionPool, orderLineMapper);
+
+                StatementBenchmark benchmark = new StatementBenchmark(database, warmUp, iterations);
+                StatementBenchmark.printHeader("orders");
+                for (int orderCount : orderCounts)
+                {
+                    StatementBenchmark.print("one query", orderCount,
+                            benchmark.measure("one query", () -> orderMapper.getOrdersPage(null, 0, orderCount)));
+                    StatementBenchmark.print("query per order", orderCount,
+                            benchmark.measure("query per order", () -> readWithQueryPerOrder(connectionPool, orderLineMapper, orderCount)));
+                }
+            }
+            finally
+            {
+                connectionPool.close();
+            }
+        }
+    }
+
+    /***
+     * The order rows as getOrdersPage reads them, then the lines the way they were read before
+     * the batch: one query per order on its own pooled connection while the page is still open.
+     */
+    private static List<List<OrderLine>> readWithQueryPerOrder(ConnectionPool connectionPool, OrderLineMapper orderLineMapper,
+                                                               int limit) throws Exception
+    {
+        List<List<OrderLine>> orderLines = new ArrayList<>();
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(PAGE_SQL))
+        {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery())
+            {
+                while (rs.next())
+                {
+                    orderLines.add(orderLineMapper.getOrderLinesByOrderId(rs.getInt("order_id")));
+                }
+            }
+        }
+        return orderLines;
+    }
+}
@@ -0,0 +1,87 @@
+package app.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Latencies per route for one stage of the load test. Every sample is kept, so p50 and p99 are
+ * exact instead of read from histogram buckets. A million requests is 8 MB per stage. The first
+ * failed response of each route is kept, so the report can show why it failed.
+ */
+public class RouteStats
+{
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Map<String, String> firstErrors = new ConcurrentHashMap<>();
+
+    public void record(String route, long nanos, boolean error)
+    {
+        routes.computeIfAbsent(route, name -> new Route()).add(nanos, error);
+    }
+
+    public void keepFirstError(String route, String response)
+    {
+        firstErrors.putIfAbsent(route, response);
+    }
+
+    public Map<String, String> getFirstErrors()
+    {
+        return new TreeMap<>(firstErrors);
+    }
+
+    /***
+     * @return one summary per route, sorted by route name
+     */
+    public Map<String, Summary> summarize(double seconds)
+    {
+        Map<String, Summary> summaries = new TreeMap<>();
+        routes.forEach((name, route) -> summaries.put(name, route.summarize(seconds)));
+        return summaries;
+    }
+
+    public record Summary(int requests, int errors, double throughput, double p50Millis, double p99Millis, double maxMillis)
+    {
+    }
+
+    private static class Route
+    {
+        private long[] samples = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void add(long nanos, boolean error)
+        {
+            if (count == samples.length)
+            {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            if (error)
+            {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize(double seconds)
+        {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Summary(count, errors, count / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        /***
+         * Nearest rank, so p99 of 100 samples is the 99th smallest.
+         */
+        private static double percentile(long[] sorted, double fraction)
+        {
+            if (sorted.length == 0)
+            {
+                return 0;
+            }
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package app.load;
+
+/***
+ * Times one case of a database benchmark: warm-up runs first, then timed runs whose latencies
+ * give p50 and p99. The statements the timed runs sent are read from pg_stat_statements before
+ * and after, so the report shows round trips next to latency. Nothing else may use the database
+ * while a case runs, or its statements are counted too.
+ */
+public class StatementBenchmark
+{
+    @FunctionalInterface
+    public interface Case
+    {
+        void run() throws Exception;
+    }
+
+    public record Result(RouteStats.Summary summary, double statementsPerRun)
+    {
+    }
+
+    private final LoadDatabase database;
+    private final int warmUp;
+    private final int iterations;
+    private final long countingStatements;
+
+    public StatementBenchmark(LoadDatabase database, int warmUp, int iterations)
+    {
+        this.database = database;
+        this.warmUp = warmUp;
+        this.iterations = iterations;
+        long before = database.countStatements();
+        this.countingStatements = database.countStatements() - before;
+    }
+
+    public Result measure(String name, Case benchmarkCase) throws Exception
+    {
+        for (int i = 0; i < warmUp; i++)
+        {
+            benchmarkCase.run();
+        }
+
+        RouteStats stats = new RouteStats();
+        long statementsBefore = database.countStatements();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            long runStart = System.nanoTime();
+            benchmarkCase.run();
+            stats.record(name, System.nanoTime() - runStart, false);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long statements = database.countStatements() - statementsBefore - countingStatements;
+
+        double statementsPerRun = statementsBefore < 0 ? Double.NaN : (double) statements / iterations;
+        return new Result(stats.summarize(seconds).get(name), statementsPerRun);
+    }
+
+    public static void printHeader(String parameter)
+    {
+        System.out.printf("%-20s %8s %9s %9s %11s%n", "case", parameter, "p50 ms", "p99 ms", "statements");
+    }
+
+    public static void print(String name, int parameter, Result result)
+    {
+        System.out.printf("%-20s %8d %9.2f %9.2f %11.1f%n", name, parameter,
+                result.summary().p50Millis(), result.summary().p99Millis(), result.statementsPerRun());
+    }
+}
@@ -0,0 +1,255 @@
+package app.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/***
+ * One browser: it keeps its own cookies and goes through the pages the way the forms do, a POST
+ * followed by a GET of the page it redirects to. Redirects are not followed by the client, so
+ * each POST and each page is measured on its own route. A request counts as an error when the
+ * status is not the one the page gives on success, e.g. a form shown again with a validation
+ * message instead of the redirect. A flow stops at the first error, since the following pages
+ * depend on the session it should have set up.
+ */
+public class VirtualUser
+{
+    private static final Pattern NEXT_PAGE = Pattern.compile("href=\"(/orders\\?before=[^\"]+)\"");
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final RouteStats routeStats;
+    private final List<Integer> bottomIds;
+    private final List<Integer> toppingIds;
+    private final int customers;
+    private final int admins;
+    private final int number;
+    private final Map<String, String> cookies = new HashMap<>();
+
+    /***
+     * @param requestTimeout a request without a response by then counts as an error
+     * @param number used for the guest email, so each virtual user is one returning guest
+     */
+    public VirtualUser(HttpClient httpClient, String baseUrl, Duration requestTimeout, RouteStats routeStats, List<Integer> bottomIds,
+                       List<Integer> toppingIds, int customers, int admins, int number)
+    {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.routeStats = routeStats;
+        this.bottomIds = bottomIds;
+        this.toppingIds = toppingIds;
+        this.customers = customers;
+        this.admins = admins;
+        this.number = number;
+    }
+
+    /***
+     * Browses, fills a basket and checks out as a guest who pays at pickup.
+     */
+    public boolean guestFlow() throws InterruptedException
+    {
+        cookies.clear();
+        return get("/")
+                && addToCart()
+                && get("/")
+                && addToCart()
+                && get("/basket")
+                && checkout(number, "gaest" + number + "@load.dk", 30000000 + number, "pay-pickup");
+    }
+
+    /***
+     * Logs in, looks at the order history, buys with the account balance and logs out.
+     */
+    public boolean customerFlow() throws InterruptedException
+    {
+        cookies.clear();
+        int customer = 1 + ThreadLocalRandom.current().nextInt(customers);
+        return login("kunde" + customer + "@load.dk")
+                && get("/user/orders")
+                && get("/")
+                && addToCart()
+                && get("/basket")
+                && checkout(customer, "kunde" + customer + "@load.dk", 20000000 + customer, "pay-now")
+                && redirect("GET /logout", request("/logout").GET(), "/");
+    }
+
+    /***
+     * Logs in as an admin, opens the first two pages of orders, lists and searches the customers
+     * and logs out.
+     */
+    public boolean adminFlow() throws InterruptedException
+    {
+        cookies.clear();
+        int admin = 1 + ThreadLocalRandom.current().nextInt(admins);
+        if (!login("admin" + admin + "@load.dk"))
+        {
+            return false;
+        }
+
+        HttpResponse<String> orders = send("GET /orders", request("/orders").GET(), null);
+        if (orders == null)
+        {
+            return false;
+        }
+        Matcher nextPage = NEXT_PAGE.matcher(orders.body());
+        if (nextPage.find() && !get("GET /orders?before", nextPage.group(1).replace("&amp;", "&")))
+        {
+            return false;
+        }
+
+        String name = LoadDatabase.FIRST_NAMES[ThreadLocalRandom.current().nextInt(LoadDatabase.FIRST_NAMES.length)];
+        return get("/customers")
+                && get("GET /customers/search", "/customers/search?searchType=name&searchQuery=" + name)
+                && redirect("GET /logout", request("/logout").GET(), "/");
+    }
+
+    private boolean login(String email) throws InterruptedException
+    {
+        return redirect("POST /login", post("/login", Map.of("email", email, "password", LoadDatabase.PASSWORD)), "/");
+    }
+
+    private boolean addToCart() throws InterruptedException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, String> form = Map.of(
+                "bottomId", String.valueOf(bottomIds.get(random.nextInt(bottomIds.size()))),
+                "toppingId", String.valueOf(toppingIds.get(random.nextInt(toppingIds.size()))),
+                "cupcakeQuantity", String.valueOf(1 + random.nextInt(6)));
+        return redirect("POST /cart/add", post("/cart/add", form), "/");
+    }
+
+    /***
+     * Pickup in the shop, which is open every day but Monday, at a time that is within the
+     * opening hours on both weekdays and weekends. The contact info is the one the seed gave
+     * user {@code seedNumber}.
+     */
+    private boolean checkout(int seedNumber, String email, int phoneNumber, String paymentMethod) throws InterruptedException
+    {
+        LocalDate pickupDate = LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(14));
+        if (pickupDate.getDayOfWeek() == DayOfWeek.MONDAY)
+        {
+            pickupDate = pickupDate.plusDays(1);
+        }
+
+        Map<String, String> delivery = Map.of("deliveryMethod", "pickup", "pickupDate", pickupDate.toString(), "pickupTime", "14:00");
+
+        Map<String, String> contact = new LinkedHashMap<>();
+        contact.put("firstName", LoadDatabase.FIRST_NAMES[seedNumber % 10]);
+        contact.put("lastName", LoadDatabase.LAST_NAMES[seedNumber / 10 % 10]);
+        contact.put("email", email);
+        contact.put("phoneNumber", String.valueOf(phoneNumber));
+
+        return get("/checkout/delivery")
+                && redirect("POST /checkout/delivery", post("/checkout/delivery", delivery), "/checkout/contact-info")
+                && get("/checkout/contact-info")
+                && redirect("POST /checkout/contact-info", post("/checkout/contact-info", contact), "/checkout/payment")
+                && get("/checkout/payment")
+                && redirect("POST /checkout/payment", post("/checkout/payment", Map.of("paymentMethod", paymentMethod)), "/order/confirmation")
+                && get("/order/confirmation");
+    }
+
+    private boolean get(String path) throws InterruptedException
+    {
+        return get("GET " + path, path);
+    }
+
+    private boolean get(String route, String path) throws InterruptedException
+    {
+        return send(route, request(path).GET(), null) != null;
+    }
+
+    private boolean redirect(String route, HttpRequest.Builder builder, String expectedLocation) throws InterruptedException
+    {
+        return send(route, builder, expectedLocation) != null;
+    }
+
+    private HttpRequest.Builder post(String path, Map<String, String> form)
+    {
+        String body = form.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return request(path)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpRequest.Builder request(String path)
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+        if (!cookies.isEmpty())
+        {
+            builder.header("Cookie", cookies.entrySet().stream()
+                    .map(entry -> entry.getKey() + "=" + entry.getValue())
+                    .collect(Collectors.joining("; ")));
+        }
+        return builder;
+    }
+
+    /***
+     * Sends the request and records its latency on the route.
+     * @param expectedLocation the path a successful request redirects to, or null when it should answer 200
+     * @return the response, or null when the request failed
+     */
+    private HttpResponse<String> send(String route, HttpRequest.Builder builder, String expectedLocation) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            long nanos = System.nanoTime() - start;
+            response.headers().allValues("Set-Cookie").forEach(this::storeCookie);
+
+            boolean succeeded = expectedLocation == null
+                    ? response.statusCode() == 200
+                    : response.statusCode() / 100 == 3 && expectedLocation.equals(locationPath(response));
+            routeStats.record(route, nanos, !succeeded);
+            if (!succeeded)
+            {
+                routeStats.keepFirstError(route, "HTTP " + response.statusCode()
+                        + response.headers().firstValue("Location").map(location -> " to " + location).orElse("")
+                        + "\n\n" + response.body());
+            }
+            return succeeded ? response : null;
+        }
+        catch (IOException e)
+        {
+            routeStats.record(route, System.nanoTime() - start, true);
+            routeStats.keepFirstError(route, e.toString());
+            return null;
+        }
+    }
+
+    private String locationPath(HttpResponse<String> response)
+    {
+        return response.headers().firstValue("Location")
+                .map(location -> URI.create(location).getPath())
+                .orElse(null);
+    }
+
+    private void storeCookie(String setCookie)
+    {
+        String pair = setCookie.split(";", 2)[0];
+        int separator = pair.indexOf('=');
+        if (separator > 0)
+        {
+            cookies.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package app;
 
 import app.config.SessionConfig;
+import app.config.StaticAssets;
 import app.config.ThymeleafConfig;
 
 import app.controllers.*;
+import app.exceptions.DatabaseException;
+import app.images.CupcakeCompositor;
+import app.images.CupcakeImages;
+import app.images.DerivativeCache;
+import app.images.ImageResizer;
+import app.metrics.MetricsRegistry;
 import app.persistence.*;
 import app.services.*;
 import io.javalin.Javalin;//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 import io.javalin.rendering.template.JavalinThymeleaf;
 
+import java.nio.file.Path;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Main
@@ -18,39 +27,57 @@ public class Main
     private static final String PASSWORD = System.getenv("JDBC_PASSWORD");
     private static final String URL = System.getenv("JDBC_CONNECTION_STRING");
     private static final String DB = System.getenv("JDBC_DB");
+    private static final String IMAGE_CACHE_DIR = System.getenv("IMAGE_CACHE_DIR");
+    private static final String IMAGE_CACHE_MAX_MB = System.getenv("IMAGE_CACHE_MAX_MB");
+    private static final boolean USE_VIRTUAL_THREADS = Boolean.parseBoolean(System.getenv("USE_VIRTUAL_THREADS"));
 
     private static final ConnectionPool connectionPool = ConnectionPool.getInstance(USER, PASSWORD, URL, DB);
 
     public static void main(String[] args)
     {
+        StaticAssets staticAssets = StaticAssets.load();
 
         Javalin app = Javalin.create(config ->
         {
+            config.useVirtualThreads = USE_VIRTUAL_THREADS;
             config.staticFiles.add("/public");
-            config.jetty.modifyServletContextHandler(handler ->  handler.setSessionHandler(SessionConfig.sessionConfig()));
-            config.fileRenderer(new JavalinThymeleaf(ThymeleafConfig.templateEngine()));
+            config.jetty.modifyServletContextHandler(handler ->  handler.setSessionHandler(SessionConfig.sessionConfig(connectionPool)));
+            config.fileRenderer(new JavalinThymeleaf(ThymeleafConfig.templateEngine(staticAssets)));
         }).start(7070);
 
 
         UserMapper userMapper = new UserMapper(connectionPool);
-        UserService userService = new UserServiceImpl(userMapper);
+        PasswordHasher passwordHasher = new PasswordHasher();
+        LoginRateLimiter loginRateLimiter = new LoginRateLimiter();
+        UserService userService = new UserServiceImpl(userMapper, passwordHasher, loginRateLimiter);
         UserController userController = new UserController(userService);
 
         BottomMapper bottomMapper = new BottomMapper(connectionPool);
         ToppingMapper toppingMapper = new ToppingMapper(connectionPool);
-        ShoppingService shoppingService = new ShoppingServiceImpl(bottomMapper, toppingMapper);
+        CatalogCache catalogCache = new CatalogCache(bottomMapper, toppingMapper);
+        ShoppingService shoppingService = new ShoppingServiceImpl(catalogCache);
         ShoppingController shoppingController = new ShoppingController(shoppingService);
 
-        CupcakeService cupcakeService = new CupcakeServiceImpl(bottomMapper, toppingMapper);
+        CupcakeService cupcakeService = new CupcakeServiceImpl(bottomMapper, toppingMapper, catalogCache);
         CupcakeController cupcakeController = new CupcakeController(cupcakeService);
 
         OrderLineMapper orderLineMapper = new OrderLineMapper(connectionPool);
         OrderMapper orderMapper = new OrderMapper(connectionPool, orderLineMapper);
-        OrderService orderService = new OrderServiceImpl(orderMapper, orderLineMapper, userMapper);
+        StatisticMapper statisticMapper = new StatisticMapper(connectionPool);
+        RevenueAggregateStore revenueAggregateStore = new RevenueAggregateStore(statisticMapper);
+        loadRevenueAggregates(revenueAggregateStore);
+        OrderService orderService = new OrderServiceImpl(orderMapper, orderLineMapper, userMapper, revenueAggregateStore);
 
         OrderController orderController = new OrderController(orderService);
         AdminController adminController = new AdminController(userService, orderService);
         CheckoutController checkoutController = new CheckoutController(orderService, userService);
+        StaticAssetController staticAssetController = new StaticAssetController(staticAssets);
+        ImageResizer imageResizer = new ImageResizer();
+        DerivativeCache imageCache = imageCache();
+        CupcakeImages cupcakeImages = new CupcakeImages(staticAssets, new CupcakeCompositor(imageResizer), imageCache, catalogCache);
+        cupcakeImages.warmUp();
+        ImageController imageController = new ImageController(staticAssets, imageResizer, imageCache, cupcakeImages);
+        MetricsController metricsController = new MetricsController(MetricsRegistry.getInstance(), System.getenv("METRICS_TOKEN"));
 
         shoppingController.addRoutes(app);
         userController.addRoutes(app);
@@ -58,5 +85,29 @@ public class Main
         adminController.addRoutes(app);
         cupcakeController.addRoutes(app);
         checkoutController.addRoutes(app);
+        metricsController.addRoutes(app);
+        staticAssetController.addRoutes(app);
+        imageController.addRoutes(app);
+    }
+
+    private static DerivativeCache imageCache()
+    {
+        Path directory = IMAGE_CACHE_DIR != null
+                ? Path.of(IMAGE_CACHE_DIR)
+                : Path.of(System.getProperty("java.io.tmpdir"), "cupcake-images");
+        long maxMegabytes = IMAGE_CACHE_MAX_MB != null ? Long.parseLong(IMAGE_CACHE_MAX_MB) : 256;
+        return new DerivativeCache(directory, maxMegabytes * 1024 * 1024);
+    }
+
+    private static void loadRevenueAggregates(RevenueAggregateStore revenueAggregateStore)
+    {
+        try
+        {
+            revenueAggregateStore.rebuild();
+        }
+        catch (DatabaseException e)
+        {
+            Logger.getLogger("web").log(Level.WARNING, "Revenue aggregates will be loaded on first use: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,24 @@
+package app.config;
+
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+
+/***
+ * Rewrites @{...} links to files under /public to their fingerprinted URL, so templates keep
+ * writing @{/css/stylesheet.css}.
+ */
+public class FingerprintLinkBuilder extends StandardLinkBuilder
+{
+    private final StaticAssets staticAssets;
+
+    public FingerprintLinkBuilder(StaticAssets staticAssets)
+    {
+        this.staticAssets = staticAssets;
+    }
+
+    @Override
+    protected String processLink(IExpressionContext context, String link)
+    {
+        return super.processLink(context, staticAssets.fingerprint(link));
+    }
+}
@@ -0,0 +1,143 @@
+package app.config;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.web.IWebSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Adds cache:fragment="name", which replaces the element with a fragment from fragments.html.
+ * With caching on, the rendered HTML of the footer is kept and reused for every page, and the
+ * header is reused for visitors who are not logged in, since only the logged in header shows
+ * the user's email and admin links. A fragment with cache:version="${...}" is rendered from the
+ * page's model and reused until the version changes, e.g. the catalog selects on the index page.
+ */
+public class FragmentCacheDialect extends AbstractProcessorDialect
+{
+    private static final String PREFIX = "cache";
+    private static final String VERSION_ATTRIBUTE = "version";
+    private static final Object UNVERSIONED = new Object();
+    private static final String FRAGMENTS_TEMPLATE = "fragments";
+    private static final Set<String> ALWAYS_CACHED = Set.of("footerFragment");
+    private static final Set<String> CACHED_WHEN_LOGGED_OUT = Set.of("headerFragment");
+
+    private final TemplateEngine templateEngine;
+    private final boolean cacheEnabled;
+    private final Map<String, RenderedFragment> renderedFragments = new ConcurrentHashMap<>();
+
+    public FragmentCacheDialect(TemplateEngine templateEngine, boolean cacheEnabled)
+    {
+        super("Fragment cache", PREFIX, StandardDialect.PROCESSOR_PRECEDENCE);
+        this.templateEngine = templateEngine;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors(String dialectPrefix)
+    {
+        return Set.of(new FragmentProcessor(dialectPrefix));
+    }
+
+    private String renderFragment(ITemplateContext context, String fragmentName, Object version)
+    {
+        boolean versioned = version != null;
+        if (!cacheEnabled || (!versioned && !isCacheable(context, fragmentName)))
+        {
+            return render(context, fragmentName, versioned);
+        }
+
+        Object key = versioned ? version : UNVERSIONED;
+        RenderedFragment rendered = renderedFragments.get(fragmentName);
+        if (rendered == null || !Objects.equals(rendered.version(), key))
+        {
+            rendered = new RenderedFragment(key, render(context, fragmentName, versioned));
+            renderedFragments.put(fragmentName, rendered);
+        }
+        return rendered.html();
+    }
+
+    private boolean isCacheable(ITemplateContext context, String fragmentName)
+    {
+        if (ALWAYS_CACHED.contains(fragmentName))
+        {
+            return true;
+        }
+        return CACHED_WHEN_LOGGED_OUT.contains(fragmentName) && !isLoggedIn(context);
+    }
+
+    private boolean isLoggedIn(ITemplateContext context)
+    {
+        if (!(context instanceof IWebContext webContext) || !webContext.getExchange().hasSession())
+        {
+            return false;
+        }
+        IWebSession session = webContext.getExchange().getSession();
+        return session.getAttributeValue("currentUser") != null;
+    }
+
+    /***
+     * The header and footer only read the session and build links, so they are rendered in a
+     * fresh context for the same request instead of with the page's model. Versioned fragments
+     * get a copy of the page's model.
+     */
+    private String render(ITemplateContext context, String fragmentName, boolean withModel)
+    {
+        Map<String, Object> variables = new HashMap<>();
+        if (withModel)
+        {
+            for (String name : context.getVariableNames())
+            {
+                variables.put(name, context.getVariable(name));
+            }
+        }
+
+        IContext fragmentContext = context instanceof IWebContext webContext
+                ? new WebContext(webContext.getExchange(), context.getLocale(), variables)
+                : new Context(context.getLocale(), variables);
+        return templateEngine.process(FRAGMENTS_TEMPLATE, Set.of(fragmentName), fragmentContext);
+    }
+
+    private record RenderedFragment(Object version, String html)
+    {
+    }
+
+    private class FragmentProcessor extends AbstractAttributeTagProcessor
+    {
+        private FragmentProcessor(String dialectPrefix)
+        {
+            super(TemplateMode.HTML, dialectPrefix, null, false, "fragment", true, StandardDialect.PROCESSOR_PRECEDENCE, true);
+        }
+
+        @Override
+        protected void doProcess(ITemplateContext context, IProcessableElementTag tag, AttributeName attributeName,
+                                 String attributeValue, IElementTagStructureHandler structureHandler)
+        {
+            String versionExpression = tag.getAttributeValue(getDialectPrefix(), VERSION_ATTRIBUTE);
+            Object version = versionExpression == null
+                    ? null
+                    : StandardExpressions.getExpressionParser(context.getConfiguration())
+                    .parseExpression(context, versionExpression)
+                    .execute(context);
+
+            structureHandler.replaceWith(renderFragment(context, attributeValue.trim(), version), false);
+        }
+    }
+}
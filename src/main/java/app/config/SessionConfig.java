@@ -1,12 +1,18 @@
 package app.config;
 
+import app.persistence.ConnectionPool;
+import app.persistence.PostgresSessionDataStore;
 import jakarta.servlet.SessionTrackingMode;
+import org.eclipse.jetty.server.session.DefaultSessionCache;
 import org.eclipse.jetty.server.session.SessionHandler;
 
 import java.util.EnumSet;
 
 public class SessionConfig
 {
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+    private static final int DEFAULT_EVICTION_SEC = 300;
+
     public static SessionHandler sessionConfig()
     {
         SessionHandler sessionHandler = new SessionHandler();
@@ -15,4 +21,51 @@ public class SessionConfig
         sessionHandler.setHttpOnly(true);
         return sessionHandler;
     }
-}
\ No newline at end of file
+
+    /***
+     * Same session handler as sessionConfig(), but when the environment variable SESSION_STORE
+     * is "postgres" sessions are kept in the sessions table instead of only on the heap. Sessions
+     * idle for SESSION_EVICTION_SEC seconds (default 300) are dropped from memory and read back
+     * from the database on the next request. Changes are flushed every SESSION_FLUSH_INTERVAL_MS.
+     * @param connectionPool pool used by the session store
+     * @return a configured SessionHandler
+     */
+    public static SessionHandler sessionConfig(ConnectionPool connectionPool)
+    {
+        SessionHandler sessionHandler = sessionConfig();
+
+        if (!"postgres".equalsIgnoreCase(System.getenv("SESSION_STORE")))
+        {
+            return sessionHandler;
+        }
+
+        PostgresSessionDataStore sessionDataStore = new PostgresSessionDataStore(connectionPool,
+                getEnvLong("SESSION_FLUSH_INTERVAL_MS", DEFAULT_FLUSH_INTERVAL_MS));
+
+        DefaultSessionCache sessionCache = new DefaultSessionCache(sessionHandler);
+        sessionCache.setSessionDataStore(sessionDataStore);
+        sessionCache.setEvictionPolicy((int) getEnvLong("SESSION_EVICTION_SEC", DEFAULT_EVICTION_SEC));
+        sessionCache.setSaveOnInactiveEviction(true);
+        sessionCache.setRemoveUnloadableSessions(true);
+        sessionHandler.setSessionCache(sessionCache);
+        return sessionHandler;
+    }
+
+    private static long getEnvLong(String name, long defaultValue)
+    {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank())
+        {
+            return defaultValue;
+        }
+
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+}
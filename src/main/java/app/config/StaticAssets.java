@@ -0,0 +1,201 @@
+package app.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/***
+ * Every file under /public is hashed once at startup. Links to a known file are rewritten to
+ * /assets/{hash}/{path}, so a changed file gets a new URL and the old one can be cached forever.
+ * Text files are kept in memory together with a gzip variant; images are streamed from the
+ * classpath, since they are already compressed.
+ */
+public class StaticAssets
+{
+    public static final String ASSET_PREFIX = "/assets/";
+    public static final String IMAGE_PREFIX = "/img/";
+
+    private static final Logger LOGGER = Logger.getLogger("web");
+    private static final String STATIC_ROOT = "/public";
+    private static final int HASH_LENGTH = 16;
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("css", "js", "svg", "html", "txt", "json");
+
+    private final Map<String, Asset> assets;
+
+    StaticAssets(Map<String, Asset> assets)
+    {
+        this.assets = assets;
+    }
+
+    public static StaticAssets load()
+    {
+        Map<String, Asset> assets = new HashMap<>();
+        try
+        {
+            for (String path : findAssetPaths())
+            {
+                assets.put(path, readAsset(path));
+            }
+            LOGGER.info("Fingerprinted " + assets.size() + " static files");
+        }
+        catch (IOException | URISyntaxException | RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Static files will be served without fingerprints: " + e.getMessage());
+        }
+        return new StaticAssets(Map.copyOf(assets));
+    }
+
+    /***
+     * Returns the fingerprinted URL for a file under /public, or the path unchanged when it is
+     * not a known file, e.g. a page or a link with parameters. Resized images, /img/{width}/{path},
+     * keep their path and get the hash of the original as the parameter v.
+     */
+    public String fingerprint(String path)
+    {
+        if (path.startsWith(IMAGE_PREFIX))
+        {
+            int pathStart = path.indexOf('/', IMAGE_PREFIX.length());
+            Asset original = pathStart == -1 ? null : assets.get(path.substring(pathStart));
+            return original == null ? path : path + "?v=" + original.hash();
+        }
+
+        Asset asset = assets.get(path);
+        return asset == null ? path : ASSET_PREFIX + asset.hash() + path;
+    }
+
+    public Asset find(String path)
+    {
+        return assets.get(path);
+    }
+
+    public InputStream open(Asset asset)
+    {
+        return StaticAssets.class.getResourceAsStream(STATIC_ROOT + asset.path());
+    }
+
+    private static Asset readAsset(String path) throws IOException
+    {
+        MessageDigest digest = sha256();
+        boolean compressible = COMPRESSIBLE_EXTENSIONS.contains(extensionOf(path));
+        ByteArrayOutputStream content = compressible ? new ByteArrayOutputStream() : null;
+        long length = 0;
+
+        try (InputStream in = StaticAssets.class.getResourceAsStream(STATIC_ROOT + path))
+        {
+            if (in == null)
+            {
+                throw new IOException("Missing static file " + path);
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+                if (content != null)
+                {
+                    content.write(buffer, 0, read);
+                }
+                length += read;
+            }
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest()).substring(0, HASH_LENGTH);
+        if (content == null)
+        {
+            return new Asset(path, hash, extensionOf(path), length, null, null);
+        }
+
+        byte[] bytes = content.toByteArray();
+        byte[] gzipped = gzip(bytes);
+        return new Asset(path, hash, extensionOf(path), length, bytes, gzipped.length < bytes.length ? gzipped : null);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed))
+        {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extensionOf(String path)
+    {
+        int dot = path.lastIndexOf('.');
+        return dot == -1 ? "" : path.substring(dot + 1).toLowerCase();
+    }
+
+    private static List<String> findAssetPaths() throws IOException, URISyntaxException
+    {
+        URL root = StaticAssets.class.getResource(STATIC_ROOT);
+        if (root == null)
+        {
+            return List.of();
+        }
+
+        URI uri = root.toURI();
+        if (!"jar".equals(uri.getScheme()))
+        {
+            return listFiles(Path.of(uri));
+        }
+
+        try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of()))
+        {
+            return listFiles(jar.getPath(STATIC_ROOT));
+        }
+    }
+
+    private static List<String> listFiles(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> "/" + directory.relativize(file).toString().replace('\\', '/'))
+                    .toList();
+        }
+    }
+
+    /***
+     * content is only kept for text files, and gzipped only when it is smaller than content.
+     */
+    public record Asset(String path, String hash, String extension, long length, byte[] content, byte[] gzipped)
+    {
+        public String etag()
+        {
+            return "\"" + hash + "\"";
+        }
+
+        public String gzipEtag()
+        {
+            return "\"" + hash + "-gzip\"";
+        }
+    }
+}
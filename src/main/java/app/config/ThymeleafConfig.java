@@ -1,17 +1,126 @@
 package app.config;
 
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.context.Context;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
 public class ThymeleafConfig
 {
-    public static TemplateEngine templateEngine()
+    private static final Logger LOGGER = Logger.getLogger("web");
+    private static final String TEMPLATE_PREFIX = "/templates/";
+    private static final String TEMPLATE_SUFFIX = ".html";
+    private static final int TEMPLATE_CACHE_MAX_SIZE = 64;
+    private static final int EXPRESSION_CACHE_MAX_SIZE = 1000;
+
+    /***
+     * Production mode when the environment variable DEPLOYED is set, like the connection pool.
+     */
+    public static TemplateEngine templateEngine(StaticAssets staticAssets)
+    {
+        return templateEngine(System.getenv("DEPLOYED") != null, staticAssets);
+    }
+
+    public static TemplateEngine templateEngine(boolean production)
+    {
+        return templateEngine(production, null);
+    }
+
+    /***
+     * In production parsed templates are cached for the lifetime of the application, every
+     * template is parsed at startup so the first request does not pay for it, and the shared
+     * header and footer are rendered once. In development templates are re-read on every request.
+     * Given static assets, links to files under /public point at their fingerprinted URL.
+     */
+    public static TemplateEngine templateEngine(boolean production, StaticAssets staticAssets)
     {
         TemplateEngine templateEngine = new TemplateEngine();
         ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
-        templateResolver.setPrefix("/templates/"); // assuming templates are in resources/templates/
-        templateResolver.setSuffix(".html");
+        templateResolver.setPrefix(TEMPLATE_PREFIX); // assuming templates are in resources/templates/
+        templateResolver.setSuffix(TEMPLATE_SUFFIX);
+        templateResolver.setCacheable(production);
+        templateResolver.setCacheTTLMs(null);
         templateEngine.setTemplateResolver(templateResolver);
+
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(TEMPLATE_CACHE_MAX_SIZE);
+        cacheManager.setExpressionCacheMaxSize(EXPRESSION_CACHE_MAX_SIZE);
+        templateEngine.setCacheManager(cacheManager);
+        templateEngine.addDialect(new FragmentCacheDialect(templateEngine, production));
+        if (staticAssets != null)
+        {
+            templateEngine.setLinkBuilder(new FingerprintLinkBuilder(staticAssets));
+        }
+
+        if (production)
+        {
+            preloadTemplates(templateEngine);
+        }
         return templateEngine;
     }
-}
\ No newline at end of file
+
+    /***
+     * Creating a throttled processor parses the template into the cache without rendering it,
+     * so no model or request is needed.
+     */
+    private static void preloadTemplates(TemplateEngine templateEngine)
+    {
+        try
+        {
+            List<String> templateNames = findTemplateNames();
+            for (String templateName : templateNames)
+            {
+                templateEngine.processThrottled(templateName, new Context());
+            }
+            LOGGER.info("Parsed " + templateNames.size() + " templates at startup");
+        }
+        catch (IOException | URISyntaxException | RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Templates will be parsed on first use: " + e.getMessage());
+        }
+    }
+
+    private static List<String> findTemplateNames() throws IOException, URISyntaxException
+    {
+        URL templates = ThymeleafConfig.class.getResource(TEMPLATE_PREFIX);
+        if (templates == null)
+        {
+            return List.of();
+        }
+
+        URI uri = templates.toURI();
+        if (!"jar".equals(uri.getScheme()))
+        {
+            return listTemplates(Path.of(uri));
+        }
+
+        try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of()))
+        {
+            return listTemplates(jar.getPath(TEMPLATE_PREFIX));
+        }
+    }
+
+    private static List<String> listTemplates(Path directory) throws IOException
+    {
+        List<String> templateNames = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory))
+        {
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(TEMPLATE_SUFFIX))
+                    .forEach(fileName -> templateNames.add(fileName.substring(0, fileName.length() - TEMPLATE_SUFFIX.length())));
+        }
+        return templateNames;
+    }
+}
@@ -1,6 +1,7 @@
 package app.controllers;
 
 import app.dto.UserDTO;
+import app.entities.Money;
 import app.entities.Order;
 import app.entities.OrderLine;
 import app.entities.User;
@@ -278,7 +279,7 @@ public class AdminController
 
         try
         {
-            double newBalance = Double.parseDouble(ctx.formParam("newBalance"));
+            long newBalance = Money.parse(ctx.formParam("newBalance"));
             int userId = Integer.parseInt(ctx.formParam("userId"));
             userService.addBalance(userId, newBalance);
 
@@ -1,6 +1,7 @@
 package app.controllers;
 
 import app.dto.UserDTO;
+import app.entities.Money;
 import app.entities.Order;
 import app.entities.ShoppingCart;
 import app.entities.User;
@@ -52,7 +53,7 @@ public class CheckoutController
 
         if (ctx.sessionAttribute("deliveryPrice") == null)
         {
-            ctx.sessionAttribute("deliveryPrice", getFormattedPrice(0.0));
+            setDeliveryPrice(ctx, 0);
         }
 
         ctx.render("checkout-delivery");
@@ -79,15 +80,15 @@ public class CheckoutController
             }
 
             LocalDateTime pickupDateTime = LocalDateTime.of(date, time);
-            double deliveryPrice = deliveryStrategy.getDeliveryPrice();
+            long deliveryPrice = deliveryStrategy.getDeliveryPrice();
 
-            ctx.sessionAttribute("deliveryPrice", deliveryPrice);
+            setDeliveryPrice(ctx, deliveryPrice);
             ctx.sessionAttribute("pickUp", pickupDateTime);
             ctx.sessionAttribute("deliveryMethod", deliveryMethod);
 
             ShoppingCart cart = ctx.sessionAttribute(SESSION_CART);
-            double orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
-            ctx.sessionAttribute("orderTotal", getFormattedPrice(orderTotalPrice));
+            long orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
+            ctx.sessionAttribute("orderTotal", Money.format(orderTotalPrice));
 
             ctx.redirect("/checkout/contact-info");
         }
@@ -108,17 +109,10 @@ public class CheckoutController
         }
 
         User currentUser = ctx.sessionAttribute("currentUser");
-        Double deliveryPrice = ctx.sessionAttribute("deliveryPrice");
         ShoppingCart cart = ctx.sessionAttribute(SESSION_CART);
+        long orderTotalPrice = cart.getTotalOrderPrice() + getDeliveryPrice(ctx);
 
-        if (deliveryPrice == null)
-        {
-            deliveryPrice = 0.0;
-        }
-
-        double orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
-
-        ctx.sessionAttribute("orderTotal", getFormattedPrice(orderTotalPrice));
+        ctx.sessionAttribute("orderTotal", Money.format(orderTotalPrice));
         ctx.attribute("currentUser", currentUser);
         ctx.attribute("deliveryMethod", deliveryMethod);
         ctx.render("checkout-contact");
@@ -214,18 +208,12 @@ public class CheckoutController
             return;
         }
 
-        Double deliveryPrice = ctx.sessionAttribute("deliveryPrice");
-        if (deliveryPrice == null)
-        {
-            deliveryPrice = 0.0;
-        }
-
-        double orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
+        long orderTotalPrice = cart.getTotalOrderPrice() + getDeliveryPrice(ctx);
 
         if (checkoutUser.getUserId() != 0)
         {
-            double balanceAfterPurchase = checkoutUser.getBalance() - orderTotalPrice;
-            ctx.attribute("userBalanceAfterPurchase", getFormattedPrice(balanceAfterPurchase));
+            long balanceAfterPurchase = checkoutUser.getBalance() - orderTotalPrice;
+            ctx.attribute("userBalanceAfterPurchase", Money.format(balanceAfterPurchase));
         }
         ctx.render("checkout-payment");
     }
@@ -239,10 +227,10 @@ public class CheckoutController
         ShoppingCart cart = ctx.sessionAttribute(SESSION_CART);
         LocalDateTime pickupDateTime = ctx.sessionAttribute("pickUp");
         String deliveryMethod = ctx.sessionAttribute("deliveryMethod");
-        double deliveryPrice = ctx.sessionAttribute("deliveryPrice");
+        long deliveryPrice = getDeliveryPrice(ctx);
 
-        double orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
-        double newUserBalance = checkoutUser.getBalance() - orderTotalPrice;
+        long orderTotalPrice = cart.getTotalOrderPrice() + deliveryPrice;
+        long newUserBalance = checkoutUser.getBalance() - orderTotalPrice;
 
         if (!validateOrderDetails(ctx, checkoutUser, cart, pickupDateTime, deliveryMethod))
         {
@@ -254,7 +242,7 @@ public class CheckoutController
             if (checkoutUser.getUserId() == 0)
             {
                 ctx.attribute("errorMessage", "Gæster kan kun betale ved afhentning");
-                ctx.attribute("userBalanceAfterPurchase", getFormattedPrice(0));
+                ctx.attribute("userBalanceAfterPurchase", Money.format(0));
                 ctx.render("checkout-payment");
                 return;
             }
@@ -262,9 +250,9 @@ public class CheckoutController
             if (checkoutUser.getBalance() < orderTotalPrice)
             {
                 ctx.attribute("errorMessage",
-                        String.format("Du har ikke penge nok på din konto. Din saldo: %.2f kr. Pris: %.2f kr. Vælg 'betal ved afhentning' eller kontakt os for at indsætte penge.",
-                                checkoutUser.getBalance(), orderTotalPrice));
-                ctx.attribute("userBalanceAfterPurchase", getFormattedPrice(newUserBalance));
+                        String.format("Du har ikke penge nok på din konto. Din saldo: %s kr. Pris: %s kr. Vælg 'betal ved afhentning' eller kontakt os for at indsætte penge.",
+                                Money.format(checkoutUser.getBalance()), Money.format(orderTotalPrice)));
+                ctx.attribute("userBalanceAfterPurchase", Money.format(newUserBalance));
                 ctx.render("checkout-payment");
                 return;
             }
@@ -282,7 +270,7 @@ public class CheckoutController
             cart.clearShoppingCart();
 
             ctx.sessionAttribute(SESSION_CART, cart);
-            ctx.attribute("userBalanceAfterPurchase", getFormattedPrice(newUserBalance));
+            ctx.attribute("userBalanceAfterPurchase", Money.format(newUserBalance));
             ctx.sessionAttribute("completedOrder", order);
             ctx.redirect("/order/confirmation");
 
@@ -290,7 +278,7 @@ public class CheckoutController
         catch (DatabaseException e)
         {
             ctx.attribute("errorMessage", e.getMessage());
-            ctx.attribute("userBalanceAfterPurchase", getFormattedPrice(newUserBalance));
+            ctx.attribute("userBalanceAfterPurchase", Money.format(newUserBalance));
             ctx.render("checkout-payment");
         }
     }
@@ -365,8 +353,15 @@ public class CheckoutController
         return true;
     }
 
-    private String getFormattedPrice(double price)
+    private void setDeliveryPrice(Context ctx, long deliveryPrice)
+    {
+        ctx.sessionAttribute("deliveryPrice", deliveryPrice);
+        ctx.sessionAttribute("formattedDeliveryPrice", Money.format(deliveryPrice));
+    }
+
+    private long getDeliveryPrice(Context ctx)
     {
-        return String.format("%.2f", price);
+        Long deliveryPrice = ctx.sessionAttribute("deliveryPrice");
+        return deliveryPrice == null ? 0 : deliveryPrice;
     }
 }
@@ -1,6 +1,7 @@
 package app.controllers;
 
 import app.entities.Bottom;
+import app.entities.Money;
 import app.entities.Topping;
 import app.entities.User;
 import app.exceptions.DatabaseException;
@@ -65,7 +66,7 @@ public class CupcakeController
         {
             try
             {
-                cupcakeService.createNewBottomFlavour(bottomFlavour.trim(), Double.parseDouble(bottomPrice.replace(",", ".").trim()));
+                cupcakeService.createNewBottomFlavour(bottomFlavour.trim(), Money.parse(bottomPrice));
             }
             catch (NumberFormatException e)
             {
@@ -86,7 +87,7 @@ public class CupcakeController
         {
             try
             {
-                cupcakeService.createNewToppingFlavour(toppingFlavour.trim(), Double.parseDouble(toppingCreatePrice.replace(",", ".").trim()));
+                cupcakeService.createNewToppingFlavour(toppingFlavour.trim(), Money.parse(toppingCreatePrice));
             }
             catch (NumberFormatException e)
             {
@@ -113,7 +114,7 @@ public class CupcakeController
         {
             try
             {
-                bottom.setPrice(Double.parseDouble(newBottomPrice.replace(",", ".").trim()));
+                bottom.setPrice(Money.parse(newBottomPrice));
             }
             catch (NumberFormatException e)
             {
@@ -141,7 +142,7 @@ public class CupcakeController
         {
             try
             {
-                topping.setPrice(Double.parseDouble(newToppingPrice.replace(",", ".").trim()));
+                topping.setPrice(Money.parse(newToppingPrice));
             }
             catch (NumberFormatException e)
             {
@@ -0,0 +1,144 @@
+package app.controllers;
+
+import app.config.StaticAssets;
+import app.config.StaticAssets.Asset;
+import app.exceptions.DatabaseException;
+import app.images.CupcakeImages;
+import app.images.DerivativeCache;
+import app.images.ImageResizer;
+import io.javalin.Javalin;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ImageController
+{
+    private static final Logger LOGGER = Logger.getLogger("web");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600";
+    private static final String CUPCAKE_IMAGES = "/cupcake-images/";
+    private static final Set<String> RESIZABLE_EXTENSIONS = Set.of("png", "jpg", "jpeg");
+
+    private final StaticAssets staticAssets;
+    private final ImageResizer imageResizer;
+    private final DerivativeCache derivativeCache;
+    private final CupcakeImages cupcakeImages;
+
+    public ImageController(StaticAssets staticAssets, ImageResizer imageResizer, DerivativeCache derivativeCache, CupcakeImages cupcakeImages)
+    {
+        this.staticAssets = staticAssets;
+        this.imageResizer = imageResizer;
+        this.derivativeCache = derivativeCache;
+        this.cupcakeImages = cupcakeImages;
+    }
+
+    public void addRoutes(Javalin app)
+    {
+        app.get(StaticAssets.IMAGE_PREFIX + "{width}/<path>", this::showImage);
+        app.get(CUPCAKE_IMAGES + "{bottom}/{topping}", this::showCupcakeImage);
+    }
+
+    /***
+     * Serves /img/{width}/{path} as a downscaled copy of /public/{path}. Only the widths in
+     * ImageResizer.WIDTHS are accepted, so the cache cannot be filled with arbitrary sizes.
+     */
+    private void showImage(Context ctx)
+    {
+        int width = parseWidth(ctx.pathParam("width"));
+        Asset original = staticAssets.find("/" + ctx.pathParam("path"));
+        if (!ImageResizer.isAllowedWidth(width) || original == null || !RESIZABLE_EXTENSIONS.contains(original.extension()))
+        {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + original.hash() + "-" + width + "\"";
+        ctx.header(Header.CACHE_CONTROL, original.hash().equals(ctx.queryParam("v")) ? IMMUTABLE : REVALIDATE);
+        ctx.header(Header.ETAG, etag);
+        if (etag.equals(ctx.header(Header.IF_NONE_MATCH)))
+        {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        try
+        {
+            byte[] image = derivativeCache.get(derivativeName(original, width),
+                    () -> imageResizer.resize(staticAssets.open(original), width));
+            ctx.contentType(ImageResizer.contentTypeOf(image));
+            ctx.result(image);
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not resize " + original.path() + ": " + e.getMessage());
+            ctx.redirect(staticAssets.fingerprint(original.path()));
+        }
+    }
+
+    /***
+     * One image of the topping on the bottom, by flavour slugs, e.g. /cupcake-images/chokolade/jordbaer.
+     */
+    private void showCupcakeImage(Context ctx) throws DatabaseException
+    {
+        String bottomSlug = ctx.pathParam("bottom");
+        String toppingSlug = ctx.pathParam("topping");
+        if (!cupcakeImages.isInCatalog(bottomSlug, toppingSlug))
+        {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+
+        String name = cupcakeImages.nameOf(bottomSlug, toppingSlug);
+        if (name == null)
+        {
+            LOGGER.log(Level.WARNING, "Missing cupcake layers for " + bottomSlug + "/" + toppingSlug);
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + name + "\"";
+        ctx.header(Header.CACHE_CONTROL, REVALIDATE);
+        ctx.header(Header.ETAG, etag);
+        if (etag.equals(ctx.header(Header.IF_NONE_MATCH)))
+        {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        try
+        {
+            byte[] image = cupcakeImages.getImage(bottomSlug, toppingSlug);
+            ctx.contentType(ContentType.IMAGE_PNG);
+            ctx.result(image);
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not composite " + bottomSlug + "/" + toppingSlug + ": " + e.getMessage());
+            ctx.status(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private String derivativeName(Asset original, int width)
+    {
+        String flattenedPath = original.path().substring(1).replace('/', '_');
+        return width + "-" + original.hash() + "-" + flattenedPath;
+    }
+
+    private int parseWidth(String width)
+    {
+        try
+        {
+            return Integer.parseInt(width);
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package app.controllers;
+
+import app.entities.User;
+import app.metrics.MetricsRegistry;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+public class MetricsController
+{
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metricsRegistry;
+    private final String scrapeToken;
+
+    public MetricsController(MetricsRegistry metricsRegistry, String scrapeToken)
+    {
+        this.metricsRegistry = metricsRegistry;
+        this.scrapeToken = scrapeToken;
+    }
+
+    public void addRoutes(Javalin app)
+    {
+        app.get("/metrics", ctx -> showMetrics(ctx));
+    }
+
+    private void showMetrics(Context ctx)
+    {
+        if (!isAllowed(ctx))
+        {
+            ctx.status(HttpStatus.FORBIDDEN).result("Du har ikke adgang til denne side");
+            return;
+        }
+
+        ctx.contentType(CONTENT_TYPE);
+        ctx.result(metricsRegistry.render());
+    }
+
+    private boolean isAllowed(Context ctx)
+    {
+        User currentUser = ctx.sessionAttribute("currentUser");
+        if (currentUser != null && currentUser.isAdmin())
+        {
+            return true;
+        }
+
+        String authorization = ctx.header("Authorization");
+        if (scrapeToken == null || scrapeToken.isBlank() || authorization == null || !authorization.startsWith("Bearer "))
+        {
+            return false;
+        }
+
+        byte[] expected = scrapeToken.getBytes(StandardCharsets.UTF_8);
+        byte[] given = authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, given);
+    }
+}
@@ -1,15 +1,16 @@
 package app.controllers;
 
+import app.dto.OrderPageDTO;
 import app.dto.UserDTO;
-import app.entities.Order;
 import app.entities.User;
 import app.exceptions.DatabaseException;
 import app.services.OrderService;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.List;
 
 public class OrderController
 {
@@ -43,12 +44,9 @@ public class OrderController
 
         try
         {
-            List<Order> userOrders = orderService.getAllUserOrders(userDTO);
-            List<Order> unpaidOrders = orderService.sortOrdersByPaymentStatus(userOrders, false);
-            List<Order> paidOrders = orderService.sortOrdersByPaymentStatus(userOrders, true);
+            OrderPageDTO orderPage = orderService.getUserOrderPage(userDTO, parseBeforeDate(ctx), parseBeforeOrderId(ctx));
             loadErrorAndSuccesMessage(ctx);
-            ctx.attribute("unpaidOrders", unpaidOrders);
-            ctx.attribute("paidOrders", paidOrders);
+            loadOrderPage(ctx, orderPage);
             ctx.render("orders");
         }
         catch (DatabaseException e)
@@ -68,11 +66,9 @@ public class OrderController
 
         try
         {
-            List<Order> unpaidOrders = orderService.getAllOrdersByStatusNotPaid(adminId);
-            List<Order> paidOrders = orderService.getAllOrdersByStatusPaid(adminId);
+            OrderPageDTO orderPage = orderService.getOrderPage(adminId, parseBeforeDate(ctx), parseBeforeOrderId(ctx));
             loadErrorAndSuccesMessage(ctx);
-            ctx.attribute("unpaidOrders", unpaidOrders);
-            ctx.attribute("paidOrders", paidOrders);
+            loadOrderPage(ctx, orderPage);
             ctx.render("orders");
         }
         catch (DatabaseException e)
@@ -84,6 +80,50 @@ public class OrderController
         }
     }
 
+    private void loadOrderPage(Context ctx, OrderPageDTO orderPage)
+    {
+        ctx.attribute("unpaidOrders", orderPage.getUnpaidOrders());
+        ctx.attribute("paidOrders", orderPage.getPaidOrders());
+        ctx.attribute("pagePath", ctx.path());
+        ctx.attribute("isFirstPage", ctx.queryParam("before") == null);
+
+        if (orderPage.hasNextPage())
+        {
+            ctx.attribute("nextBeforeDate", orderPage.getNextBeforeDate());
+            ctx.attribute("nextBeforeId", orderPage.getNextBeforeOrderId());
+        }
+    }
+
+    private LocalDateTime parseBeforeDate(Context ctx)
+    {
+        String before = ctx.queryParam("before");
+        if (before == null || before.isBlank())
+        {
+            return null;
+        }
+
+        try
+        {
+            return LocalDateTime.parse(before);
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+    }
+
+    private int parseBeforeOrderId(Context ctx)
+    {
+        try
+        {
+            return Integer.parseInt(ctx.queryParam("beforeId"));
+        }
+        catch (NumberFormatException e)
+        {
+            return Integer.MAX_VALUE;
+        }
+    }
+
     private void validateCurrentUserIsAdmin(Context ctx, User currentUser)
     {
         if (currentUser == null || !currentUser.isAdmin())
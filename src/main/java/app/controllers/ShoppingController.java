@@ -1,6 +1,8 @@
 package app.controllers;
 
+import app.dto.CatalogDTO;
 import app.entities.Bottom;
+import app.entities.Money;
 import app.entities.ShoppingCart;
 import app.entities.Topping;
 import app.exceptions.DatabaseException;
@@ -34,8 +36,10 @@ public class ShoppingController
     {
         var model = new HashMap<String, Object>();
 
-        model.put("bottoms", shoppingService.getAllBottoms());
-        model.put("toppings", shoppingService.getAllToppings());
+        CatalogDTO catalog = shoppingService.getCatalog();
+        model.put("bottoms", catalog.getBottoms());
+        model.put("toppings", catalog.getToppings());
+        model.put("catalogVersion", catalog.getVersion());
         model.put("cart", getOrCreateCart(ctx));
 
         String label = ctx.sessionAttribute("succesLabel");
@@ -54,7 +58,7 @@ public class ShoppingController
 
         var model = new HashMap<String, Object>();
         model.put("cart", cart);
-        model.put("basketTotalPrice", shoppingService.getTotalOrderPrice(cart));
+        model.put("basketTotalPrice", Money.format(shoppingService.getTotalOrderPrice(cart)));
         model.put("basketTotalQuantity", shoppingService.getTotalOrderQuantity(cart));
 
         ctx.render("basket.html", model);
@@ -72,7 +76,7 @@ public class ShoppingController
 
         var model = new HashMap<String, Object>();
         model.put("cart", cart);
-        model.put("basketTotalPrice", shoppingService.getTotalOrderPrice(cart));
+        model.put("basketTotalPrice", Money.format(shoppingService.getTotalOrderPrice(cart)));
         model.put("basketTotalQuantity", shoppingService.getTotalOrderQuantity(cart));
 
         ctx.render("checkout-payment.html", model);
@@ -0,0 +1,114 @@
+package app.controllers;
+
+import app.config.StaticAssets;
+import app.config.StaticAssets.Asset;
+import io.javalin.Javalin;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+public class StaticAssetController
+{
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String GZIP = "gzip";
+
+    private final StaticAssets staticAssets;
+
+    public StaticAssetController(StaticAssets staticAssets)
+    {
+        this.staticAssets = staticAssets;
+    }
+
+    public void addRoutes(Javalin app)
+    {
+        app.get(StaticAssets.ASSET_PREFIX + "{hash}/<path>", this::serveAsset);
+        app.head(StaticAssets.ASSET_PREFIX + "{hash}/<path>", this::serveAsset);
+    }
+
+    /***
+     * A fingerprinted URL never changes content, so it is cached for a year without revalidation.
+     * An old hash, e.g. from a page cached before a deploy, is redirected to the current URL.
+     */
+    private void serveAsset(Context ctx)
+    {
+        String path = "/" + ctx.pathParam("path");
+        Asset asset = staticAssets.find(path);
+        if (asset == null)
+        {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+        if (!asset.hash().equals(ctx.pathParam("hash")))
+        {
+            ctx.redirect(staticAssets.fingerprint(path));
+            return;
+        }
+
+        boolean gzip = asset.gzipped() != null && acceptsGzip(ctx.header(Header.ACCEPT_ENCODING));
+        String etag = gzip ? asset.gzipEtag() : asset.etag();
+
+        ctx.header(Header.CACHE_CONTROL, IMMUTABLE);
+        ctx.header(Header.ETAG, etag);
+        if (asset.gzipped() != null)
+        {
+            ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+        }
+        if (matches(ctx.header(Header.IF_NONE_MATCH), etag))
+        {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        String mimeType = ContentType.getMimeTypeByExtension(asset.extension());
+        ctx.contentType(mimeType != null ? mimeType : ContentType.OCTET_STREAM);
+        if (gzip)
+        {
+            ctx.header(Header.CONTENT_ENCODING, GZIP);
+            ctx.result(asset.gzipped());
+        }
+        else if (asset.content() != null)
+        {
+            ctx.result(asset.content());
+        }
+        else
+        {
+            ctx.header(Header.CONTENT_LENGTH, String.valueOf(asset.length()));
+            ctx.result(staticAssets.open(asset));
+        }
+    }
+
+    private boolean acceptsGzip(String acceptEncoding)
+    {
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(","))
+        {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP) || parts[0].trim().equals("*"))
+            {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null)
+        {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
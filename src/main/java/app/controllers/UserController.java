@@ -48,7 +48,7 @@ public class UserController
         }
         catch (DatabaseException e)
         {
-            ctx.attribute("errorMessage", "Forkert email eller password");
+            ctx.attribute("errorMessage", e.getMessage());
             ctx.render("login");
         }
     }
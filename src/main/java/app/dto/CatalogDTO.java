@@ -0,0 +1,21 @@
+package app.dto;
+
+import app.entities.Bottom;
+import app.entities.Topping;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/***
+ * The bottoms and toppings of one catalog load together with its version, so a page renders
+ * its selects and caches them under the version they were loaded with.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogDTO
+{
+    private final List<Bottom> bottoms;
+    private final List<Topping> toppings;
+    private final long version;
+}
@@ -0,0 +1,23 @@
+package app.dto;
+
+import app.entities.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderPageDTO
+{
+    private List<Order> unpaidOrders;
+    private List<Order> paidOrders;
+    private LocalDateTime nextBeforeDate;
+    private int nextBeforeOrderId;
+
+    public boolean hasNextPage()
+    {
+        return nextBeforeDate != null;
+    }
+}
@@ -0,0 +1,16 @@
+package app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.YearMonth;
+
+@Data
+@AllArgsConstructor
+public class RevenueDTO
+{
+    private YearMonth month;
+    private long revenue;
+    private int orderCount;
+    private long averageOrderValue;
+}
@@ -1,5 +1,6 @@
 package app.dto;
 
+import app.entities.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -15,5 +16,10 @@ public class UserDTO
     private String street;
     private int zipCode;
     private String city;
-    private double balance;
+    private long balance;
+
+    public String getFormattedBalance()
+    {
+        return Money.format(balance);
+    }
 }
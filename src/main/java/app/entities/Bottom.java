@@ -1,25 +1,44 @@
 package app.entities;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
 public class Bottom
 {
     private int bottomId;
     private String name;
-    private double price;
+    private long price;
 
-    public String getSlug()
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String slug;
+
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String image;
+
+    public Bottom(int bottomId, String name, long price)
+    {
+        this.bottomId = bottomId;
+        this.price = price;
+        setName(name);
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+        this.slug = FlavourImages.slugOf(name);
+        this.image = FlavourImages.bottomImage(slug);
+    }
+
+    public String getFormattedPrice()
     {
-        if (name == null) return "";
-        return name
-                .toLowerCase()
-                .replaceAll("å", "aa")
-                .replaceAll("æ", "ae")
-                .replaceAll("ø", "oe")
-                .replaceAll("[\\s/]+", "")
-                .replaceAll("[^a-z0-9]", "");
+        return Money.format(price);
     }
 }
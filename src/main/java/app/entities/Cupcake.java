@@ -9,7 +9,7 @@ public class Cupcake
 {
     private Bottom bottom;
     private Topping topping;
-    private double cupcakePrice;
+    private long cupcakePrice;
 
     public Cupcake(Bottom bottom, Topping topping)
     {
@@ -17,6 +17,11 @@ public class Cupcake
         this.topping = topping;
         this.cupcakePrice = bottom.getPrice() + topping.getPrice();
     }
+
+    public String getFormattedPrice()
+    {
+        return Money.format(cupcakePrice);
+    }
 }
 
 
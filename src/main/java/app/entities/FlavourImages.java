@@ -0,0 +1,85 @@
+package app.entities;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Slugs and image paths for bottoms and toppings. Bottom and Topping compute both once when
+ * they are built or renamed, so templates only read fields. The slug is made with a lookup
+ * table per character instead of regular expressions: letters and digits are kept in lower
+ * case, å, æ and ø become aa, ae and oe, and everything else is dropped. An image that does
+ * not exist under /public resolves to the placeholder here, so pages never link to a 404.
+ */
+public final class FlavourImages
+{
+    private static final String STATIC_ROOT = "/public";
+    private static final String BOTTOM_IMAGES = "/images/cupcakes/bottoms/bottom_";
+    private static final String TOPPING_IMAGES = "/images/cupcakes/toppings/topping_";
+    private static final String PLACEHOLDER = "placeholder";
+    private static final String IMAGE_SUFFIX = ".png";
+
+    private static final String[] TRANSLITERATION = buildTransliterationTable();
+    private static final Map<String, String> resolvedImages = new ConcurrentHashMap<>();
+
+    private FlavourImages()
+    {
+    }
+
+    public static String slugOf(String name)
+    {
+        if (name == null)
+        {
+            return "";
+        }
+
+        StringBuilder slug = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (c < TRANSLITERATION.length && TRANSLITERATION[c] != null)
+            {
+                slug.append(TRANSLITERATION[c]);
+            }
+        }
+        return slug.toString();
+    }
+
+    public static String bottomImage(String slug)
+    {
+        return resolveImage(BOTTOM_IMAGES, slug);
+    }
+
+    public static String toppingImage(String slug)
+    {
+        return resolveImage(TOPPING_IMAGES, slug);
+    }
+
+    private static String resolveImage(String imagePrefix, String slug)
+    {
+        return resolvedImages.computeIfAbsent(imagePrefix + slug + IMAGE_SUFFIX, path ->
+                FlavourImages.class.getResource(STATIC_ROOT + path) != null
+                        ? path
+                        : imagePrefix + PLACEHOLDER + IMAGE_SUFFIX);
+    }
+
+    private static String[] buildTransliterationTable()
+    {
+        String[] table = new String[256];
+        for (char c = 'a'; c <= 'z'; c++)
+        {
+            table[c] = String.valueOf(c);
+            table[Character.toUpperCase(c)] = String.valueOf(c);
+        }
+        for (char c = '0'; c <= '9'; c++)
+        {
+            table[c] = String.valueOf(c);
+        }
+        table['å'] = "aa";
+        table['Å'] = "aa";
+        table['æ'] = "ae";
+        table['Æ'] = "ae";
+        table['ø'] = "oe";
+        table['Ø'] = "oe";
+        return table;
+    }
+}
@@ -0,0 +1,82 @@
+package app.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/***
+ * Amounts are stored as whole øre in a long everywhere: entities, mappers and the database.
+ * This class converts between øre and the kroner text the user sees or types. Formatted
+ * amounts below CACHE_LIMIT are built once and reused, since the same handful of prices
+ * is rendered on every page.
+ */
+public final class Money
+{
+    private static final int ORE_PER_KRONE = 100;
+    private static final int CACHE_LIMIT = 100_000;
+    private static final String[] FORMATTED = new String[CACHE_LIMIT];
+
+    private Money()
+    {
+    }
+
+    /***
+     * Formats øre as Danish kroner with two decimals, e.g. 1250 as "12,50".
+     */
+    public static String format(long ore)
+    {
+        if (ore >= 0 && ore < CACHE_LIMIT)
+        {
+            String formatted = FORMATTED[(int) ore];
+            if (formatted == null)
+            {
+                formatted = build(ore);
+                FORMATTED[(int) ore] = formatted;
+            }
+            return formatted;
+        }
+        return build(ore);
+    }
+
+    /***
+     * Parses kroner typed by a user, with either a comma or a point as decimal separator.
+     * @throws NumberFormatException if the text is not a number with at most two decimals
+     */
+    public static long parse(String kroner)
+    {
+        if (kroner == null)
+        {
+            throw new NumberFormatException("Beløb mangler");
+        }
+
+        try
+        {
+            return new BigDecimal(kroner.trim().replace(',', '.'))
+                    .movePointRight(2)
+                    .setScale(0, RoundingMode.UNNECESSARY)
+                    .longValueExact();
+        }
+        catch (ArithmeticException e)
+        {
+            throw new NumberFormatException("Ugyldigt beløb: " + kroner);
+        }
+    }
+
+    private static String build(long ore)
+    {
+        long absolute = Math.abs(ore);
+        long kroner = absolute / ORE_PER_KRONE;
+        long rest = absolute % ORE_PER_KRONE;
+
+        StringBuilder builder = new StringBuilder(24);
+        if (ore < 0)
+        {
+            builder.append('-');
+        }
+        builder.append(kroner).append(',');
+        if (rest < 10)
+        {
+            builder.append('0');
+        }
+        return builder.append(rest).toString();
+    }
+}
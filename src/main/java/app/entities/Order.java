@@ -17,11 +17,11 @@ public class Order
     private LocalDateTime pickUpDate;
     private boolean paid;
     private List<OrderLine> orderlines;
-    private double totalPrice;
+    private long totalPrice;
 
     public String getFormattedPrice()
     {
-        return String.format("%.2f", totalPrice);
+        return Money.format(totalPrice);
     }
 }
 
@@ -10,7 +10,7 @@ public class OrderLine
     private int orderLineId;
     private Cupcake cupcake;
     private int quantity;
-    private double orderLinePrice;
+    private long orderLinePrice;
 
     public OrderLine(Cupcake cupcake, int quantity)
     {
@@ -18,4 +18,9 @@ public class OrderLine
         this.quantity = quantity;
         this.orderLinePrice = cupcake.getCupcakePrice() * quantity;
     }
+
+    public String getFormattedPrice()
+    {
+        return Money.format(orderLinePrice);
+    }
 }
@@ -1,46 +1,104 @@
 package app.entities;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/***
+ * The cart keeps its lines in insertion order for the index based API, plus an index from
+ * (bottomId, toppingId, price) to line and running totals, so adding a cupcake and reading the
+ * totals do not scan the lines. The price is part of the key like in Cupcake.equals, so a
+ * flavour whose price changed between two adds gets a line of its own and every line has a
+ * single price.
+ */
 @Data
-@AllArgsConstructor
 public class ShoppingCart
 {
     private List<OrderLine> shoppingCart = new ArrayList<>();
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<CupcakeKey, OrderLine> linesByCupcake = new HashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private long totalOrderPrice;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int totalOrderQuantity;
+
     public ShoppingCart()
     {
     }
 
+    public ShoppingCart(List<OrderLine> shoppingCart)
+    {
+        setShoppingCart(shoppingCart);
+    }
+
+    public void setShoppingCart(List<OrderLine> shoppingCart)
+    {
+        this.shoppingCart = shoppingCart;
+        linesByCupcake.clear();
+        totalOrderPrice = 0;
+        totalOrderQuantity = 0;
+
+        for (OrderLine orderLine : shoppingCart)
+        {
+            linesByCupcake.put(cupcakeKey(orderLine.getCupcake()), orderLine);
+            changeTotals(orderLine, orderLine.getQuantity());
+        }
+    }
+
     public void addOrderLineToCart(Cupcake cupcake, int quantity)
     {
         if (cupcake == null || quantity < 0)
         {
             throw new IllegalArgumentException("Cupcake eller mængde kan ikke være tom eller 0");
         }
-        boolean newQuantity = false;
-        for (OrderLine o : shoppingCart)
+
+        OrderLine existing = linesByCupcake.get(cupcakeKey(cupcake));
+        if (existing != null)
         {
-            if (o.getCupcake().equals(cupcake))
-            {
-                o.setQuantity(o.getQuantity() + quantity);
-                o.setOrderLinePrice(o.getOrderLinePrice() + (cupcake.getCupcakePrice() * quantity));
-                newQuantity = true;
-            }
+            existing.setQuantity(existing.getQuantity() + quantity);
+            existing.setOrderLinePrice(existing.getCupcake().getCupcakePrice() * existing.getQuantity());
+            changeTotals(existing, quantity);
         }
-        if (!newQuantity)
+        else
         {
-            this.shoppingCart.add(new OrderLine(cupcake, quantity));
+            OrderLine orderLine = new OrderLine(cupcake, quantity);
+            this.shoppingCart.add(orderLine);
+            linesByCupcake.put(cupcakeKey(cupcake), orderLine);
+            changeTotals(orderLine, quantity);
         }
     }
 
+    /***
+     * Finds the cart's line through the key index and removes that instance by identity, so the
+     * lines are not compared with the deep equals of OrderLine, Cupcake, Bottom and Topping.
+     */
     public void removeOrderLineFromCart(OrderLine orderLine)
     {
-        shoppingCart.remove(orderLine);
+        CupcakeKey key = cupcakeKey(orderLine.getCupcake());
+        OrderLine cartLine = linesByCupcake.get(key);
+        if (cartLine != null && shoppingCart.removeIf(line -> line == cartLine))
+        {
+            linesByCupcake.remove(key);
+            changeTotals(cartLine, -cartLine.getQuantity());
+        }
     }
 
     public void removeOneFromCupcakeQuantity(OrderLine orderLine)
@@ -53,6 +111,7 @@ public class ShoppingCart
         {
             orderLine.setQuantity((orderLine.getQuantity() - 1));
             orderLine.setOrderLinePrice(orderLine.getCupcake().getCupcakePrice() * orderLine.getQuantity());
+            changeTotals(orderLine, -1);
         }
     }
 
@@ -60,18 +119,25 @@ public class ShoppingCart
     {
         orderLine.setQuantity((orderLine.getQuantity() + 1));
         orderLine.setOrderLinePrice(orderLine.getCupcake().getCupcakePrice() * orderLine.getQuantity());
+        changeTotals(orderLine, 1);
     }
 
-    public double getTotalOrderPrice()
+    public long getTotalOrderPrice()
     {
-        return this.shoppingCart.stream()
-                .mapToDouble(orderLine -> (orderLine.getQuantity() * orderLine.getCupcake().getCupcakePrice()))
-                .sum();
+        return totalOrderPrice;
+    }
+
+    public String getFormattedTotalOrderPrice()
+    {
+        return Money.format(totalOrderPrice);
     }
 
     public void clearShoppingCart()
     {
         this.shoppingCart.clear();
+        linesByCupcake.clear();
+        totalOrderPrice = 0;
+        totalOrderQuantity = 0;
     }
 
     public boolean isEmpty()
@@ -81,7 +147,21 @@ public class ShoppingCart
 
     public int getTotalOrderQuantitiy()
     {
-        return this.shoppingCart.stream().mapToInt(OrderLine::getQuantity)
-                .sum();
+        return totalOrderQuantity;
+    }
+
+    private void changeTotals(OrderLine orderLine, int quantityChange)
+    {
+        totalOrderQuantity += quantityChange;
+        totalOrderPrice += orderLine.getCupcake().getCupcakePrice() * quantityChange;
+    }
+
+    private static CupcakeKey cupcakeKey(Cupcake cupcake)
+    {
+        return new CupcakeKey(cupcake.getBottom().getBottomId(), cupcake.getTopping().getToppingId(), cupcake.getCupcakePrice());
+    }
+
+    private record CupcakeKey(int bottomId, int toppingId, long price)
+    {
     }
 }
@@ -18,11 +18,11 @@ public class User
     private String street;
     private int zipCode;
     private String city;
-    private double balance;
+    private long balance;
     private boolean isAdmin;
     private boolean isGuest;
 
-    public User(int userId, String firstName, String lastName, String email, int phoneNumber, String street, int zipCode, String city, double balance, boolean isAdmin, boolean isGuest)
+    public User(int userId, String firstName, String lastName, String email, int phoneNumber, String street, int zipCode, String city, long balance, boolean isAdmin, boolean isGuest)
     {
         this.userId = userId;
         this.firstName = firstName;
@@ -37,13 +37,18 @@ public class User
         this.isGuest = isGuest;
     }
 
-    public void addToBalance(double amount)
+    public void addToBalance(long amount)
     {
 
     }
 
-    public boolean subtractFromBalance(double amount)
+    public boolean subtractFromBalance(long amount)
     {
         return false;
     }
+
+    public String getFormattedBalance()
+    {
+        return Money.format(balance);
+    }
 }
@@ -0,0 +1,45 @@
+package app.images;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+/***
+ * Stacks a topping on a bottom the way the cupcake box on the index page used to in CSS:
+ * both layers are squares of the same width, the bottom moved down by 10% and the topping
+ * up by 30% of that width. The result is one transparent PNG, WIDTH wide and 1.4 times as tall.
+ */
+public class CupcakeCompositor
+{
+    public static final int WIDTH = 480;
+
+    private static final double BOTTOM_OFFSET = 0.4;
+    private static final double HEIGHT_FACTOR = 1.4;
+
+    private final ImageResizer imageResizer;
+
+    public CupcakeCompositor(ImageResizer imageResizer)
+    {
+        this.imageResizer = imageResizer;
+    }
+
+    public byte[] composite(InputStream bottomSource, InputStream toppingSource) throws IOException
+    {
+        BufferedImage bottom = imageResizer.scale(imageResizer.read(bottomSource), WIDTH);
+        BufferedImage topping = imageResizer.scale(imageResizer.read(toppingSource), WIDTH);
+
+        BufferedImage cupcake = new BufferedImage(WIDTH, (int) Math.round(WIDTH * HEIGHT_FACTOR), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = cupcake.createGraphics();
+        try
+        {
+            graphics.drawImage(bottom, 0, (int) Math.round(WIDTH * BOTTOM_OFFSET), null);
+            graphics.drawImage(topping, 0, 0, null);
+        }
+        finally
+        {
+            graphics.dispose();
+        }
+        return imageResizer.writePng(cupcake);
+    }
+}
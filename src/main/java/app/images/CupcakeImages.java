@@ -0,0 +1,133 @@
+package app.images;
+
+import app.config.StaticAssets;
+import app.config.StaticAssets.Asset;
+import app.entities.Bottom;
+import app.entities.FlavourImages;
+import app.entities.Topping;
+import app.exceptions.DatabaseException;
+import app.persistence.CatalogCache;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * Composited cupcake images, one per bottom and topping image pair, kept in memory and in the
+ * disk cache. Images are named after the hashes of both layers, so a changed layer gives a new
+ * image. Every flavour without an image shares the placeholder, so the number of images is
+ * bounded by the image files, not by the slugs people ask for. warmUp() generates every
+ * combination in the catalog on a background thread; it runs at startup and after every
+ * catalog refresh, so a new flavour has its images before anyone selects it.
+ */
+public class CupcakeImages
+{
+    private static final Logger LOGGER = Logger.getLogger("web");
+
+    private final StaticAssets staticAssets;
+    private final CupcakeCompositor cupcakeCompositor;
+    private final DerivativeCache derivativeCache;
+    private final CatalogCache catalogCache;
+    private final Map<String, byte[]> images = new ConcurrentHashMap<>();
+    private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "cupcake-images");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CupcakeImages(StaticAssets staticAssets, CupcakeCompositor cupcakeCompositor, DerivativeCache derivativeCache, CatalogCache catalogCache)
+    {
+        this.staticAssets = staticAssets;
+        this.cupcakeCompositor = cupcakeCompositor;
+        this.derivativeCache = derivativeCache;
+        this.catalogCache = catalogCache;
+        catalogCache.addRefreshListener(this::warmUp);
+    }
+
+    /***
+     * Only flavours in the catalog get images, so requests for made up slugs cannot fill the caches.
+     */
+    public boolean isInCatalog(String bottomSlug, String toppingSlug) throws DatabaseException
+    {
+        return catalogCache.getAllBottoms().stream().anyMatch(bottom -> bottom.getSlug().equals(bottomSlug))
+                && catalogCache.getAllToppings().stream().anyMatch(topping -> topping.getSlug().equals(toppingSlug));
+    }
+
+    /***
+     * @return the image name, also used as ETag, or null if the layer images are missing
+     */
+    public String nameOf(String bottomSlug, String toppingSlug)
+    {
+        return nameOf(bottomLayer(bottomSlug), toppingLayer(toppingSlug));
+    }
+
+    public byte[] getImage(String bottomSlug, String toppingSlug) throws IOException
+    {
+        Asset bottom = bottomLayer(bottomSlug);
+        Asset topping = toppingLayer(toppingSlug);
+        String name = nameOf(bottom, topping);
+        if (name == null)
+        {
+            throw new IOException("Missing cupcake layers for " + bottomSlug + "/" + toppingSlug);
+        }
+
+        byte[] image = images.get(name);
+        if (image == null)
+        {
+            image = derivativeCache.get(name, () -> cupcakeCompositor.composite(staticAssets.open(bottom), staticAssets.open(topping)));
+            images.put(name, image);
+        }
+        return image;
+    }
+
+    public void warmUp()
+    {
+        warmUpExecutor.execute(this::generateAll);
+    }
+
+    private void generateAll()
+    {
+        try
+        {
+            List<Bottom> bottoms = catalogCache.getAllBottoms();
+            List<Topping> toppings = catalogCache.getAllToppings();
+            for (Bottom bottom : bottoms)
+            {
+                for (Topping topping : toppings)
+                {
+                    getImage(bottom.getSlug(), topping.getSlug());
+                }
+            }
+            LOGGER.info("Cupcake images ready for " + bottoms.size() * toppings.size() + " combinations");
+        }
+        catch (DatabaseException | IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Cupcake images will be generated on first use: " + e.getMessage());
+        }
+    }
+
+    private Asset bottomLayer(String bottomSlug)
+    {
+        return staticAssets.find(FlavourImages.bottomImage(bottomSlug));
+    }
+
+    private Asset toppingLayer(String toppingSlug)
+    {
+        return staticAssets.find(FlavourImages.toppingImage(toppingSlug));
+    }
+
+    private String nameOf(Asset bottom, Asset topping)
+    {
+        if (bottom == null || topping == null)
+        {
+            return null;
+        }
+        return "cupcake-" + bottom.hash() + "-" + topping.hash() + ".png";
+    }
+}
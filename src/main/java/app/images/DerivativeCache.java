@@ -0,0 +1,249 @@
+package app.images;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/***
+ * Generated images stored on disk, bounded by total size and evicted least recently used first.
+ * Files found in the directory at startup are kept, oldest first in the LRU order, so a restart
+ * does not regenerate everything. When several requests miss on the same name at once, only
+ * the first one generates it and the others wait for its result.
+ */
+public class DerivativeCache
+{
+    private static final Logger LOGGER = Logger.getLogger("web");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public DerivativeCache(Path directory, long maxBytes)
+    {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        loadExisting();
+    }
+
+    @FunctionalInterface
+    public interface Generator
+    {
+        byte[] generate() throws IOException;
+    }
+
+    /***
+     * Names are used as file names, so callers build them from widths, hashes and slugs only.
+     */
+    public byte[] get(String name, Generator generator) throws IOException
+    {
+        byte[] cached = read(name);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        CompletableFuture<byte[]> generation = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(name, generation);
+        if (running != null)
+        {
+            return await(running);
+        }
+
+        try
+        {
+            byte[] bytes = read(name);
+            if (bytes != null)
+            {
+                generation.complete(bytes);
+                return bytes;
+            }
+
+            bytes = generator.generate();
+            write(name, bytes);
+            generation.complete(bytes);
+            return bytes;
+        }
+        catch (Throwable e)
+        {
+            // Errors too, e.g. running out of memory decoding a large image, or the requests
+            // waiting for this generation would wait forever
+            generation.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(name);
+        }
+    }
+
+    public synchronized boolean contains(String name)
+    {
+        return sizes.containsKey(name);
+    }
+
+    public synchronized long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    private byte[] read(String name) throws IOException
+    {
+        synchronized (this)
+        {
+            if (sizes.get(name) == null)
+            {
+                return null;
+            }
+        }
+
+        try
+        {
+            return Files.readAllBytes(directory.resolve(name));
+        }
+        catch (NoSuchFileException e)
+        {
+            forget(name);
+            return null;
+        }
+    }
+
+    /***
+     * Written to a temporary file and moved into place, so a reader never sees half an image.
+     */
+    private void write(String name, byte[] bytes) throws IOException
+    {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, name, ".tmp");
+        try
+        {
+            Files.write(temporary, bytes);
+            Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+
+        List<String> evicted;
+        synchronized (this)
+        {
+            Long previous = sizes.put(name, (long) bytes.length);
+            totalBytes += bytes.length - (previous == null ? 0 : previous);
+            evicted = evictOverflow(name);
+        }
+        for (String evictedName : evicted)
+        {
+            Files.deleteIfExists(directory.resolve(evictedName));
+        }
+    }
+
+    private List<String> evictOverflow(String keep)
+    {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext())
+        {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(keep))
+            {
+                continue;
+            }
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    private synchronized void forget(String name)
+    {
+        Long size = sizes.remove(name);
+        if (size != null)
+        {
+            totalBytes -= size;
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> running) throws IOException
+    {
+        try
+        {
+            return running.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof IOException ioException)
+            {
+                throw ioException;
+            }
+            if (e.getCause() instanceof Error error)
+            {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void loadExisting()
+    {
+        if (!Files.isDirectory(directory))
+        {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            List<Path> existing = files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparing(DerivativeCache::lastModified))
+                    .toList();
+
+            List<String> evicted;
+            synchronized (this)
+            {
+                for (Path file : existing)
+                {
+                    long size = Files.size(file);
+                    sizes.put(file.getFileName().toString(), size);
+                    totalBytes += size;
+                }
+                evicted = evictOverflow(null);
+            }
+            for (String evictedName : evicted)
+            {
+                Files.deleteIfExists(directory.resolve(evictedName));
+            }
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not read image cache " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file)
+    {
+        try
+        {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
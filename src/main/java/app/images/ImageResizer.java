@@ -0,0 +1,131 @@
+package app.images;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/***
+ * Downscales images with javax.imageio. Opaque images are re-encoded as JPEG, which is a
+ * fraction of the size of the PNG photos, and images with transparency stay PNG so the
+ * cupcake layers can still be stacked. Only the widths in WIDTHS are produced, so the number
+ * of derivatives per image stays small.
+ */
+public class ImageResizer
+{
+    public static final int[] WIDTHS = {320, 480, 640, 960, 1280};
+
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final String PNG = "image/png";
+    private static final String JPEG = "image/jpeg";
+
+    public static boolean isAllowedWidth(int width)
+    {
+        return Arrays.binarySearch(WIDTHS, width) >= 0;
+    }
+
+    /***
+     * The derivative is PNG when it starts with the PNG signature, otherwise JPEG.
+     */
+    public static String contentTypeOf(byte[] image)
+    {
+        return image.length > 0 && image[0] == (byte) 0x89 ? PNG : JPEG;
+    }
+
+    public byte[] resize(InputStream source, int width) throws IOException
+    {
+        BufferedImage image = read(source);
+        BufferedImage scaled = scale(image, Math.min(width, image.getWidth()));
+        return scaled.getColorModel().hasAlpha() ? writePng(scaled) : writeJpeg(scaled);
+    }
+
+    BufferedImage read(InputStream source) throws IOException
+    {
+        if (source == null)
+        {
+            throw new IOException("Missing image");
+        }
+
+        BufferedImage image;
+        try (source)
+        {
+            image = ImageIO.read(source);
+        }
+        if (image == null)
+        {
+            throw new IOException("Unsupported image format");
+        }
+        return image;
+    }
+
+    /***
+     * Halves the image until it is less than twice the target width before the last step, since a
+     * single bilinear step from 1536 to 320 pixels drops most of the source pixels and looks grainy.
+     */
+    BufferedImage scale(BufferedImage image, int targetWidth)
+    {
+        boolean alpha = image.getColorModel().hasAlpha();
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        do
+        {
+            width = width / 2 >= targetWidth ? width / 2 : targetWidth;
+            height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try
+            {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            }
+            finally
+            {
+                graphics.dispose();
+            }
+            current = step;
+        }
+        while (width != targetWidth);
+
+        return current;
+    }
+
+    byte[] writePng(BufferedImage image) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private byte[] writeJpeg(BufferedImage image) throws IOException
+    {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out))
+        {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally
+        {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
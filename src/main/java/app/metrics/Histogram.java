@@ -0,0 +1,63 @@
+package app.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Lock-free latency histogram with fixed bucket bounds in seconds, rendered in the
+ * Prometheus text format by MetricsRegistry.
+ */
+public class Histogram
+{
+    private static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final LongAdder[] bucketCounts = new LongAdder[BUCKETS.length];
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram()
+    {
+        for (int i = 0; i < bucketCounts.length; i++)
+        {
+            bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double seconds)
+    {
+        for (int i = 0; i < BUCKETS.length; i++)
+        {
+            if (seconds <= BUCKETS[i])
+            {
+                bucketCounts[i].increment();
+                break;
+            }
+        }
+        count.increment();
+        sum.add(seconds);
+    }
+
+    public void observeNanos(long nanos)
+    {
+        observe(nanos / 1_000_000_000.0);
+    }
+
+    void render(StringBuilder out, String name, String labels)
+    {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+
+        for (int i = 0; i < BUCKETS.length; i++)
+        {
+            cumulative += bucketCounts[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(BUCKETS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+
+        long total = count.sum();
+        out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"+Inf\"} ").append(total).append('\n');
+        out.append(name).append("_sum").append(MetricsRegistry.braces(labels)).append(' ').append(sum.sum()).append('\n');
+        out.append(name).append("_count").append(MetricsRegistry.braces(labels)).append(' ').append(total).append('\n');
+    }
+}
@@ -0,0 +1,137 @@
+package app.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/***
+ * Singleton registry of application metrics (histograms, counters and gauges).
+ * Series are created on first use and rendered in the Prometheus text exposition format.
+ */
+public class MetricsRegistry
+{
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry()
+    {
+    }
+
+    public static MetricsRegistry getInstance()
+    {
+        return instance;
+    }
+
+    public Histogram histogram(String name, String help)
+    {
+        return histogram(name, help, null, null);
+    }
+
+    public Histogram histogram(String name, String help, String labelName, String labelValue)
+    {
+        return (Histogram) family(name, help, "histogram")
+                .series.computeIfAbsent(labels(labelName, labelValue), key -> new Histogram());
+    }
+
+    public LongAdder counter(String name, String help)
+    {
+        return counter(name, help, null, null);
+    }
+
+    public LongAdder counter(String name, String help, String labelName, String labelValue)
+    {
+        return (LongAdder) family(name, help, "counter")
+                .series.computeIfAbsent(labels(labelName, labelValue), key -> new LongAdder());
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value)
+    {
+        gauge(name, help, null, null, value);
+    }
+
+    public void gauge(String name, String help, String labelName, String labelValue, DoubleSupplier value)
+    {
+        family(name, help, "gauge").series.put(labels(labelName, labelValue), value);
+    }
+
+    /***
+     * Renders every registered series in the Prometheus text format (version 0.0.4)
+     * @return the scrape body for the /metrics endpoint
+     */
+    public String render()
+    {
+        StringBuilder out = new StringBuilder();
+
+        for (Family family : families.values())
+        {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+
+            for (Map.Entry<String, Object> series : family.series.entrySet())
+            {
+                String labels = series.getKey();
+                Object value = series.getValue();
+
+                if (value instanceof Histogram histogram)
+                {
+                    histogram.render(out, family.name, labels);
+                }
+                else if (value instanceof LongAdder counter)
+                {
+                    out.append(family.name).append(braces(labels)).append(' ').append(counter.sum()).append('\n');
+                }
+                else if (value instanceof DoubleSupplier gauge)
+                {
+                    out.append(family.name).append(braces(labels)).append(' ').append(gauge.getAsDouble()).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    static String braces(String labels)
+    {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private Family family(String name, String help, String type)
+    {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type))
+        {
+            throw new IllegalArgumentException("Metric " + name + " er allerede registreret som " + family.type);
+        }
+        return family;
+    }
+
+    private String labels(String labelName, String labelValue)
+    {
+        if (labelName == null)
+        {
+            return "";
+        }
+        String escaped = labelValue
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+        return labelName + "=\"" + escaped + "\"";
+    }
+
+    private static final class Family
+    {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, String type)
+        {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
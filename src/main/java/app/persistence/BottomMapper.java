@@ -18,6 +18,7 @@ public class BottomMapper
 
     public List<Bottom> getAllBottoms() throws DatabaseException
     {
+        long start = System.nanoTime();
         List<Bottom> bottomList = new ArrayList<>();
         String sql = "SELECT * FROM bottoms";
         try (Connection connection = connectionPool.getConnection();
@@ -29,7 +30,7 @@ public class BottomMapper
                 Bottom b = new Bottom(
                         rs.getInt("bottom_id"),
                         rs.getString("bottom_flavour"),
-                        rs.getDouble("bottom_price")
+                        rs.getLong("bottom_price")
                 );
                 bottomList.add(b);
             }
@@ -38,6 +39,7 @@ public class BottomMapper
         {
             throw new DatabaseException("Database error while fetching toppings: " + e);
         }
+        QueryMetrics.record("BottomMapper.getAllBottoms", start, bottomList.size());
         return bottomList;
     }
 
@@ -55,7 +57,7 @@ public class BottomMapper
                     return new Bottom(
                             rs.getInt("bottom_id"),
                             rs.getString("bottom_flavour"),
-                            rs.getDouble("bottom_price"));
+                            rs.getLong("bottom_price"));
                 }
                 return null;
             }
@@ -66,7 +68,7 @@ public class BottomMapper
         }
     }
 
-    public Bottom createBottom(String bottomFlavour, double bottomPrice) throws DatabaseException
+    public Bottom createBottom(String bottomFlavour, long bottomPrice) throws DatabaseException
     {
         String sql = "INSERT INTO bottoms (bottom_flavour, bottom_price)" +
                 "VALUES(?,?)";
@@ -76,7 +78,7 @@ public class BottomMapper
         {
 
             ps.setString(1, bottomFlavour);
-            ps.setDouble(2, bottomPrice);
+            ps.setLong(2, bottomPrice);
 
             int rowsAffected = ps.executeUpdate();
 
@@ -116,7 +118,7 @@ public class BottomMapper
              PreparedStatement ps = connection.prepareStatement(sql))
         {
             ps.setString(1, bottom.getName());
-            ps.setDouble(2, bottom.getPrice());
+            ps.setLong(2, bottom.getPrice());
             ps.setInt(3, bottom.getBottomId());
 
             int rowsAffected = ps.executeUpdate();
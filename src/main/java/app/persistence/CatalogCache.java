@@ -0,0 +1,162 @@
+package app.persistence;
+
+import app.dto.CatalogDTO;
+import app.entities.Bottom;
+import app.entities.Topping;
+import app.exceptions.DatabaseException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/***
+ * Read-through cache of the cupcake catalog (bottoms and toppings), shared by the
+ * shopping and cupcake services. The catalog is held as one immutable snapshot that is
+ * loaded on first use and replaced as a whole by refresh() after every catalog write,
+ * so readers never see a half-updated catalog and never touch the database after warm-up.
+ * Reloads are guarded by a ReentrantLock rather than synchronized, so a virtual thread
+ * waiting on the database inside refresh() does not pin its carrier thread.
+ */
+public class CatalogCache
+{
+    private final BottomMapper bottomMapper;
+    private final ToppingMapper toppingMapper;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong versions = new AtomicLong();
+    private final List<Runnable> refreshListeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    public CatalogCache(BottomMapper bottomMapper, ToppingMapper toppingMapper)
+    {
+        this.bottomMapper = bottomMapper;
+        this.toppingMapper = toppingMapper;
+    }
+
+    public List<Bottom> getAllBottoms() throws DatabaseException
+    {
+        return getSnapshot().bottoms;
+    }
+
+    public List<Topping> getAllToppings() throws DatabaseException
+    {
+        return getSnapshot().toppings;
+    }
+
+    /***
+     * @return the bottoms, toppings and version of one load, for callers that need them to match
+     */
+    public CatalogDTO getCatalog() throws DatabaseException
+    {
+        return getSnapshot().catalog;
+    }
+
+    /***
+     * @return a number that changes every time the catalog is reloaded, for caches of
+     * anything rendered from the catalog
+     */
+    public long getVersion() throws DatabaseException
+    {
+        return getSnapshot().version;
+    }
+
+    /***
+     * @return the cached bottom, or null if no bottom has the id (same contract as BottomMapper)
+     */
+    public Bottom getBottomById(int bottomId) throws DatabaseException
+    {
+        return getSnapshot().bottomsById.get(bottomId);
+    }
+
+    /***
+     * @return the cached topping, or null if no topping has the id (same contract as ToppingMapper)
+     */
+    public Topping getToppingById(int toppingId) throws DatabaseException
+    {
+        return getSnapshot().toppingsById.get(toppingId);
+    }
+
+    /***
+     * Runs the listener after every reload, on the thread that reloaded. Listeners with slow
+     * work, like generating images for new flavours, should hand it to their own thread.
+     */
+    public void addRefreshListener(Runnable listener)
+    {
+        refreshListeners.add(listener);
+    }
+
+    /***
+     * Reloads the catalog from the database and swaps it in atomically.
+     * Call after every create, update or delete of a bottom or topping.
+     * @throws DatabaseException
+     */
+    public void refresh() throws DatabaseException
+    {
+        refreshLock.lock();
+        try
+        {
+            snapshot = new Snapshot(bottomMapper.getAllBottoms(), toppingMapper.getAllToppings(), versions.incrementAndGet());
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+
+        for (Runnable listener : refreshListeners)
+        {
+            listener.run();
+        }
+    }
+
+    private Snapshot getSnapshot() throws DatabaseException
+    {
+        Snapshot current = snapshot;
+        if (current == null)
+        {
+            refreshLock.lock();
+            try
+            {
+                if (snapshot == null)
+                {
+                    refresh();
+                }
+                current = snapshot;
+            }
+            finally
+            {
+                refreshLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static final class Snapshot
+    {
+        private final List<Bottom> bottoms;
+        private final List<Topping> toppings;
+        private final Map<Integer, Bottom> bottomsById = new HashMap<>();
+        private final Map<Integer, Topping> toppingsById = new HashMap<>();
+        private final long version;
+        private final CatalogDTO catalog;
+
+        private Snapshot(List<Bottom> bottoms, List<Topping> toppings, long version)
+        {
+            this.version = version;
+            this.bottoms = List.copyOf(bottoms);
+            this.toppings = List.copyOf(toppings);
+            this.catalog = new CatalogDTO(this.bottoms, this.toppings, version);
+
+            for (Bottom bottom : this.bottoms)
+            {
+                bottomsById.put(bottom.getBottomId(), bottom);
+            }
+
+            for (Topping topping : this.toppings)
+            {
+                toppingsById.put(topping.getToppingId(), topping);
+            }
+        }
+    }
+}
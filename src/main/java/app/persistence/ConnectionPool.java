@@ -13,8 +13,10 @@ import java.util.logging.Logger;
  */
 public class ConnectionPool
 {
-    public static ConnectionPool instance = null;
-    public static HikariDataSource ds = null;
+    private static final int DEFAULT_MAX_POOL_SIZE = 3;
+
+    private static volatile ConnectionPool instance = null;
+    private static volatile HikariDataSource ds = null;
 
     /***
      * Empty and private constructor due to single pattern. Use getInstance methods to
@@ -26,23 +28,7 @@ public class ConnectionPool
 
     public static ConnectionPool getInstance()
     {
-        if (instance == null)
-        {
-            if (System.getenv("DEPLOYED") != null)
-            {
-                ds = createHikariConnectionPool(
-                        System.getenv("JDBC_USER"),
-                        System.getenv("JDBC_PASSWORD"),
-                        System.getenv("JDBC_CONNECTION_STRING"),
-                        System.getenv("JDBC_DB"));
-            }
-            else
-            {
-                ds = createHikariConnectionPool("postgres", "postgres", "jdbc:postgresql://localhost:5432/%s?currentSchema=public", "cupcake");
-            }
-            instance = new ConnectionPool();
-        }
-        return instance;
+        return getInstance("postgres", "postgres", "jdbc:postgresql://localhost:5432/%s?currentSchema=public", "cupcake");
     }
 
     /***
@@ -57,31 +43,41 @@ public class ConnectionPool
      */
     public static ConnectionPool getInstance(String user, String password, String url, String db)
     {
-        if (instance == null)
+        ConnectionPool pool = instance;
+        if (pool == null)
         {
-            if (System.getenv("DEPLOYED") != null)
-            {
-                ds = createHikariConnectionPool(
-                        System.getenv("JDBC_USER"),
-                        System.getenv("JDBC_PASSWORD"),
-                        System.getenv("JDBC_CONNECTION_STRING"),
-                        System.getenv("JDBC_DB"));
-            }
-            else
+            synchronized (ConnectionPool.class)
             {
-                ds = createHikariConnectionPool(user, password, url, db);
+                pool = instance;
+                if (pool == null)
+                {
+                    if (System.getenv("DEPLOYED") != null)
+                    {
+                        ds = createHikariConnectionPool(
+                                System.getenv("JDBC_USER"),
+                                System.getenv("JDBC_PASSWORD"),
+                                System.getenv("JDBC_CONNECTION_STRING"),
+                                System.getenv("JDBC_DB"));
+                    }
+                    else
+                    {
+                        ds = createHikariConnectionPool(user, password, url, db);
+                    }
+                    pool = new ConnectionPool();
+                    instance = pool;
+                }
             }
-            instance = new ConnectionPool();
         }
-        return instance;
+        return pool;
     }
 
     /***
-     * Getting a live connection from a Hikari Connection Pool
+     * Getting a live connection from a Hikari Connection Pool. Not synchronized, Hikari's
+     * borrow is already thread safe and a monitor here would serialize every request.
      * @return a database connection to be used in sql requests
      * @throws SQLException
      */
-    public synchronized Connection getConnection() throws SQLException
+    public Connection getConnection() throws SQLException
     {
         return ds.getConnection();
     }
@@ -96,7 +92,10 @@ public class ConnectionPool
     }
 
     /***
-     * Configuring a Hikari DataSource ConnectionPool. Default pool size is 3.
+     * Configuring a Hikari DataSource ConnectionPool. Default pool size is 3. Pool sizing,
+     * timeouts and leak detection can be overridden with the environment variables
+     * DB_POOL_MAX_SIZE, DB_POOL_MIN_IDLE, DB_CONNECTION_TIMEOUT_MS, DB_IDLE_TIMEOUT_MS,
+     * DB_MAX_LIFETIME_MS and DB_LEAK_DETECTION_THRESHOLD_MS.
      * @param user for Postgresql database user
      * @param password for Postgresql database user
      * @param url connection string for postgresql database. Remember to add currentSchema to string
@@ -112,11 +111,43 @@ public class ConnectionPool
         config.setJdbcUrl(String.format(url, db));
         config.setUsername(user);
         config.setPassword(password);
-        config.setMaximumPoolSize(3);
+        config.setMaximumPoolSize(getEnvInt("DB_POOL_MAX_SIZE", DEFAULT_MAX_POOL_SIZE));
+        config.setMinimumIdle(getEnvInt("DB_POOL_MIN_IDLE", config.getMaximumPoolSize()));
+        config.setConnectionTimeout(getEnvLong("DB_CONNECTION_TIMEOUT_MS", config.getConnectionTimeout()));
+        config.setIdleTimeout(getEnvLong("DB_IDLE_TIMEOUT_MS", config.getIdleTimeout()));
+        config.setMaxLifetime(getEnvLong("DB_MAX_LIFETIME_MS", config.getMaxLifetime()));
+        config.setLeakDetectionThreshold(getEnvLong("DB_LEAK_DETECTION_THRESHOLD_MS", 0));
         config.setPoolName("Postgresql Pool");
+        config.setMetricsTrackerFactory(PoolMetricsTracker::new);
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         return new HikariDataSource(config);
     }
+
+    private static int getEnvInt(String name, int defaultValue)
+    {
+        return (int) getEnvLong(name, defaultValue);
+    }
+
+    private static long getEnvLong(String name, long defaultValue)
+    {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank())
+        {
+            return defaultValue;
+        }
+
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            Logger.getLogger("web").log(Level.WARNING,
+                    String.format("Ignoring %s=%s, not a number. Using %d", name, value, defaultValue));
+            return defaultValue;
+        }
+    }
 }
\ No newline at end of file
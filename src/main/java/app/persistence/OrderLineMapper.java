@@ -6,12 +6,16 @@ import app.entities.OrderLine;
 import app.entities.Topping;
 import app.exceptions.DatabaseException;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class OrderLineMapper
 {
@@ -22,6 +26,10 @@ public class OrderLineMapper
         this.connectionPool = connectionPool;
     }
 
+    /***
+     * Inserts all lines of an order as one JDBC batch on the caller's transaction. With
+     * reWriteBatchedInserts enabled on the pool, the driver sends them as multi-row INSERTs.
+     */
     public void insertOrderLines(Connection connection, int orderId, List<OrderLine> orderLines) throws SQLException
     {
         String sql = "INSERT INTO orderlines (order_id, topping_id, bottom_id, quantity, orderline_price) VALUES (?, ?, ?, ?, ?)";
@@ -34,16 +42,18 @@ public class OrderLineMapper
                 ps.setInt(2, line.getCupcake().getTopping().getToppingId());
                 ps.setInt(3, line.getCupcake().getBottom().getBottomId());
                 ps.setInt(4, line.getQuantity());
-                ps.setDouble(5, line.getOrderLinePrice());
-                ps.executeUpdate();
+                ps.setLong(5, line.getOrderLinePrice());
+                ps.addBatch();
             }
+            ps.executeBatch();
         }
     }
 
     public List<OrderLine> getOrderLinesByOrderId(int orderId) throws DatabaseException
     {
+        long start = System.nanoTime();
         List<OrderLine> orderLines = new ArrayList<>();
-        String sql = "SELECT ol.orderline_id, ol.topping_id, ol.bottom_id, ol.quantity, ol.orderline_price, t.topping_flavour, t.topping_price, b.bottom_flavour, b.bottom_price FROM orderlines ol JOIN toppings t ON t.topping_id = ol.topping_id JOIN bottoms b ON b.bottom_id = ol.bottom_id WHERE ol.order_id = ?";
+        String sql = "SELECT ol.orderline_id, ol.order_id, ol.topping_id, ol.bottom_id, ol.quantity, ol.orderline_price, t.topping_flavour, t.topping_price, b.bottom_flavour, b.bottom_price FROM orderlines ol JOIN toppings t ON t.topping_id = ol.topping_id JOIN bottoms b ON b.bottom_id = ol.bottom_id WHERE ol.order_id = ?";
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql))
@@ -54,39 +64,58 @@ public class OrderLineMapper
 
             while (rs.next())
             {
-                Topping topping = new Topping(
-                        rs.getInt("topping_id"),
-                        rs.getString("topping_flavour"),
-                        rs.getDouble("topping_price")
-                );
-
-                Bottom bottom = new Bottom(
-                        rs.getInt("bottom_id"),
-                        rs.getString("bottom_flavour"),
-                        rs.getDouble("bottom_price")
-                );
-
-                Cupcake cupcake = new Cupcake(bottom, topping);
-                int orderLineId = rs.getInt("orderline_id");
-                int quantity = rs.getInt("quantity");
-                double orderLinePrice = rs.getDouble("orderline_price");
-
-                orderLines.add(
-                        new OrderLine(
-                                orderLineId,
-                                cupcake,
-                                quantity,
-                                orderLinePrice)
-                );
+                orderLines.add(buildOrderLineFromResultSet(rs));
             }
         }
         catch (SQLException e)
         {
             throw new DatabaseException("Fejl ved hentning af ordrelinjer" + e.getMessage());
         }
+        QueryMetrics.record("OrderLineMapper.getOrderLinesByOrderId", start, orderLines.size());
         return orderLines;
     }
 
+    /***
+     * Fetches the order lines for a whole set of orders in one round trip on the
+     * caller's connection, instead of one query and one pooled connection per order.
+     * @param connection an open connection, typically the one the orders were read on
+     * @param orderIds ids of the orders to load lines for
+     * @return order lines grouped by order id. Orders without lines are not present in the map
+     * @throws SQLException
+     */
+    public Map<Integer, List<OrderLine>> getOrderLinesByOrderIds(Connection connection, Collection<Integer> orderIds) throws SQLException
+    {
+        Map<Integer, List<OrderLine>> orderLinesByOrderId = new HashMap<>();
+
+        if (orderIds.isEmpty())
+        {
+            return orderLinesByOrderId;
+        }
+
+        String sql = "SELECT ol.orderline_id, ol.order_id, ol.topping_id, ol.bottom_id, ol.quantity, ol.orderline_price, t.topping_flavour, t.topping_price, b.bottom_flavour, b.bottom_price FROM orderlines ol JOIN toppings t ON t.topping_id = ol.topping_id JOIN bottoms b ON b.bottom_id = ol.bottom_id WHERE ol.order_id = ANY(?) ORDER BY ol.order_id, ol.orderline_id";
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            Array ids = connection.createArrayOf("integer", orderIds.toArray());
+            ps.setArray(1, ids);
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                while (rs.next())
+                {
+                    orderLinesByOrderId
+                            .computeIfAbsent(rs.getInt("order_id"), id -> new ArrayList<>())
+                            .add(buildOrderLineFromResultSet(rs));
+                }
+            }
+            finally
+            {
+                ids.free();
+            }
+        }
+        return orderLinesByOrderId;
+    }
+
     public boolean deleteOrderline(int orderlineId) throws DatabaseException
     {
         String sql = "DELETE FROM orderlines WHERE orderline_id = ?";
@@ -109,4 +138,30 @@ public class OrderLineMapper
         }
         return result;
     }
+
+    private OrderLine buildOrderLineFromResultSet(ResultSet rs) throws SQLException
+    {
+        Topping topping = new Topping(
+                rs.getInt("topping_id"),
+                rs.getString("topping_flavour"),
+                rs.getLong("topping_price")
+        );
+
+        Bottom bottom = new Bottom(
+                rs.getInt("bottom_id"),
+                rs.getString("bottom_flavour"),
+                rs.getLong("bottom_price")
+        );
+
+        Cupcake cupcake = new Cupcake(bottom, topping);
+        int orderLineId = rs.getInt("orderline_id");
+        int quantity = rs.getInt("quantity");
+        long orderLinePrice = rs.getLong("orderline_price");
+
+        return new OrderLine(
+                orderLineId,
+                cupcake,
+                quantity,
+                orderLinePrice);
+    }
 }
@@ -1,13 +1,16 @@
 package app.persistence;
 
 import app.dto.UserDTO;
+import app.entities.Money;
 import app.entities.Order;
 import app.entities.OrderLine;
 import app.exceptions.DatabaseException;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class OrderMapper
 {
@@ -22,34 +25,52 @@ public class OrderMapper
 
     public Order createOrder(Order order) throws DatabaseException
     {
+        return createOrder(order, false);
+    }
+
+    /***
+     * Inserts the order and its lines in one transaction. When debitUserBalance is true the
+     * order total is drawn from the user's balance in the same transaction with a conditional
+     * UPDATE, so concurrent checkouts can never spend the same money twice.
+     * @param order the order to create; on a debit the balance of its UserDTO is set to the new balance
+     * @param debitUserBalance true when the order is paid from the user's balance
+     * @return the created order with its order id
+     * @throws DatabaseException if the balance is too low or the order could not be created
+     */
+    public Order createOrder(Order order, boolean debitUserBalance) throws DatabaseException
+    {
+        long start = System.nanoTime();
         Connection connection = null;
         try
         {
             connection = connectionPool.getConnection();
             connection.setAutoCommit(false);
 
+            if (debitUserBalance)
+            {
+                long newBalance = debitUserBalance(connection, order.getUserDTO().getUserId(), order.getTotalPrice());
+                order.getUserDTO().setBalance(newBalance);
+            }
+
             int orderId = insertOrder(connection, order);
             orderLineMapper.insertOrderLines(connection, orderId, order.getOrderlines());
 
             connection.commit();
 
             order.setOrderId(orderId);
+            QueryMetrics.record("OrderMapper.createOrder", start, order.getOrderlines().size() + 1);
             return order;
         }
         catch (SQLException e)
         {
-            if (connection != null)
-            {
-                try
-                {
-                    connection.rollback();
-                }
-                catch (SQLException rollbackException)
-                {
-                }
-            }
+            rollback(connection);
             throw new DatabaseException("Kunne ikke oprette ordren i databasen: " + e.getMessage());
         }
+        catch (DatabaseException e)
+        {
+            rollback(connection);
+            throw e;
+        }
         finally
         {
             if (connection != null)
@@ -69,6 +90,7 @@ public class OrderMapper
     // TODO
     public Order getOrderByOrderId(int orderId, int userId) throws DatabaseException
     {
+        long start = System.nanoTime();
         String sql = """
                 SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total,
                                 u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance,
@@ -85,29 +107,21 @@ public class OrderMapper
             ps.setInt(1, orderId);
             ps.setInt(2, userId);
 
+            List<Order> orders = new ArrayList<>();
             try (ResultSet rs = ps.executeQuery())
             {
                 if (rs.next())
                 {
-                    UserDTO user = buildUserDTOFromResultSet(rs);
-                    List<OrderLine> orderLines = orderLineMapper.getOrderLinesByOrderId(orderId);
-
-                    Order order = new Order(
-                            rs.getInt("order_id"),
-                            user,
-                            rs.getTimestamp("order_date").toLocalDateTime(),
-                            rs.getTimestamp("pickup_date").toLocalDateTime(),
-                            rs.getBoolean("paid"),
-                            orderLines,
-                            rs.getDouble("price_total")
-                    );
-                    return order;
+                    orders.add(buildOrderFromResultSet(rs, buildUserDTOFromResultSet(rs)));
                 }
                 else
                 {
                     throw new DatabaseException("Ordre ikke fundet");
                 }
             }
+            attachOrderLines(connection, orders);
+            QueryMetrics.record("OrderMapper.getOrderByOrderId", start, orders.size());
+            return orders.get(0);
         }
         catch (SQLException e)
         {
@@ -117,6 +131,7 @@ public class OrderMapper
 
     public List<Order> getOrdersByUserId(UserDTO userDTO) throws DatabaseException
     {
+        long start = System.nanoTime();
         List<Order> orders = new ArrayList<>();
 
         String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
@@ -136,21 +151,11 @@ public class OrderMapper
             {
                 while (rs.next())
                 {
-                    int orderId = rs.getInt("order_id");
-                    List<OrderLine> orderLines = orderLineMapper.getOrderLinesByOrderId(orderId);
-
-                    Order order = new Order(
-                            orderId,
-                            userDTO,
-                            rs.getTimestamp("order_date").toLocalDateTime(),
-                            rs.getTimestamp("pickup_date").toLocalDateTime(),
-                            rs.getBoolean("paid"),
-                            orderLines,
-                            rs.getDouble("price_total")
-                    );
-                    orders.add(order);
+                    orders.add(buildOrderFromResultSet(rs, userDTO));
                 }
             }
+            attachOrderLines(connection, orders);
+            QueryMetrics.record("OrderMapper.getOrdersByUserId", start, orders.size());
             return orders;
         }
         catch (SQLException e)
@@ -161,6 +166,7 @@ public class OrderMapper
 
     public List<Order> getAllOrders() throws DatabaseException
     {
+        long start = System.nanoTime();
         List<Order> orders = new ArrayList<>();
 
         String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
@@ -177,22 +183,11 @@ public class OrderMapper
             {
                 while (rs.next())
                 {
-                    int orderId = rs.getInt("order_id");
-                    UserDTO userDTO = buildUserDTOFromResultSet(rs);
-                    List<OrderLine> orderLines = orderLineMapper.getOrderLinesByOrderId(orderId);
-
-                    Order order = new Order(
-                            orderId,
-                            userDTO,
-                            rs.getTimestamp("order_date").toLocalDateTime(),
-                            rs.getTimestamp("pickup_date").toLocalDateTime(),
-                            rs.getBoolean("paid"),
-                            orderLines,
-                            rs.getDouble("price_total")
-                    );
-                    orders.add(order);
+                    orders.add(buildOrderFromResultSet(rs, buildUserDTOFromResultSet(rs)));
                 }
             }
+            attachOrderLines(connection, orders);
+            QueryMetrics.record("OrderMapper.getAllOrders", start, orders.size());
             return orders;
         }
         catch (SQLException e)
@@ -201,33 +196,265 @@ public class OrderMapper
         }
     }
 
-    public boolean deleteOrder(int orderId) throws DatabaseException
+    /***
+     * Keyset pagination over all orders, newest first. Pass a null beforeDate for the first page,
+     * otherwise the order date and id of the last order on the previous page.
+     * @param beforeDate order date of the last order already shown, or null
+     * @param beforeOrderId order id of the last order already shown
+     * @param limit maximum number of orders to return
+     * @return up to limit orders ordered by (order_date DESC, order_id DESC)
+     * @throws DatabaseException
+     */
+    public List<Order> getOrdersPage(LocalDateTime beforeDate, int beforeOrderId, int limit) throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+                "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+                "u.admin, u.is_guest, z.city " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+                (beforeDate != null ? "WHERE (o.order_date, o.order_id) < (?, ?) " : "") +
+                "ORDER BY o.order_date DESC, o.order_id DESC " +
+                "LIMIT ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            if (beforeDate != null)
+            {
+                ps.setTimestamp(index++, Timestamp.valueOf(beforeDate));
+                ps.setInt(index++, beforeOrderId);
+            }
+            ps.setInt(index, limit);
+            List<Order> orders = readOrders(connection, ps);
+            QueryMetrics.record("OrderMapper.getOrdersPage", start, orders.size());
+            return orders;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke hente ordrer: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Keyset pagination over one user's orders, newest first. Same cursor contract as getOrdersPage.
+     */
+    public List<Order> getOrdersPageByUserId(int userId, LocalDateTime beforeDate, int beforeOrderId, int limit) throws DatabaseException
     {
-        boolean result = false;
-        String sql = "DELETE FROM orders WHERE order_id = ?";
+        long start = System.nanoTime();
+        String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+                "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+                "u.admin, u.is_guest, z.city " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+                "WHERE o.user_id = ? " +
+                (beforeDate != null ? "AND (o.order_date, o.order_id) < (?, ?) " : "") +
+                "ORDER BY o.order_date DESC, o.order_id DESC " +
+                "LIMIT ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            ps.setInt(index++, userId);
+            if (beforeDate != null)
+            {
+                ps.setTimestamp(index++, Timestamp.valueOf(beforeDate));
+                ps.setInt(index++, beforeOrderId);
+            }
+            ps.setInt(index, limit);
+            List<Order> orders = readOrders(connection, ps);
+            QueryMetrics.record("OrderMapper.getOrdersPageByUserId", start, orders.size());
+            return orders;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke hente ordrer: " + e.getMessage());
+        }
+    }
+
+    public List<Order> searchOrdersByOrderId(int orderId) throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+                "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+                "u.admin, u.is_guest, z.city " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+                "WHERE o.order_id = ?";
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql))
         {
             ps.setInt(1, orderId);
-            int rowsAffected = ps.executeUpdate();
+            List<Order> orders = readOrders(connection, ps);
+            QueryMetrics.record("OrderMapper.searchOrdersByOrderId", start, orders.size());
+            return orders;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke søge efter ordre: " + e.getMessage());
+        }
+    }
+
+    public List<Order> searchOrdersByName(String name, int limit) throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+                "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+                "u.admin, u.is_guest, z.city " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+                "WHERE u.firstname ILIKE ? OR u.lastname ILIKE ? " +
+                "ORDER BY o.order_date DESC, o.order_id DESC " +
+                "LIMIT ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            String pattern = buildContainsPattern(name);
+            ps.setString(1, pattern);
+            ps.setString(2, pattern);
+            ps.setInt(3, limit);
+            List<Order> orders = readOrders(connection, ps);
+            QueryMetrics.record("OrderMapper.searchOrdersByName", start, orders.size());
+            return orders;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke søge efter ordrer: " + e.getMessage());
+        }
+    }
+
+    public List<Order> searchOrdersByEmail(String email, int limit) throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT o.order_id, o.user_id, o.order_date, o.pickup_date, o.paid, o.price_total, " +
+                "u.firstname, u.lastname, u.email, u.phonenumber, u.street, u.zip_code, u.balance, " +
+                "u.admin, u.is_guest, z.city " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "JOIN zip_codes z ON u.zip_code = z.zip_code " +
+                "WHERE u.email ILIKE ? " +
+                "ORDER BY o.order_date DESC, o.order_id DESC " +
+                "LIMIT ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setString(1, buildContainsPattern(email));
+            ps.setInt(2, limit);
+            List<Order> orders = readOrders(connection, ps);
+            QueryMetrics.record("OrderMapper.searchOrdersByEmail", start, orders.size());
+            return orders;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke søge efter ordrer: " + e.getMessage());
+        }
+    }
 
-            if (rowsAffected == 1)
+    public boolean deleteOrder(int orderId) throws DatabaseException
+    {
+        return deleteOrderReturningOrder(orderId) != null;
+    }
+
+    /***
+     * Deletes an order and hands back what was deleted, so callers can keep derived state
+     * such as the revenue aggregates in step without reading the order first.
+     * @return the deleted order without lines and user, or null if no order had the id
+     * @throws DatabaseException
+     */
+    public Order deleteOrderReturningOrder(int orderId) throws DatabaseException
+    {
+        return deleteOrderReturningOrder(orderId, false);
+    }
+
+    /***
+     * Deletes an order and, when refundUser is true and the order was paid, credits its total
+     * back to the user in the same transaction. The credit is added to the balance in the
+     * UPDATE itself, so a checkout debit running at the same time is never overwritten.
+     * @return the deleted order without lines and user, or null if no order had the id
+     * @throws DatabaseException
+     */
+    public Order deleteOrderReturningOrder(int orderId, boolean refundUser) throws DatabaseException
+    {
+        String sql = "DELETE FROM orders WHERE order_id = ? " +
+                "RETURNING order_id, user_id, order_date, pickup_date, paid, price_total";
+
+        Connection connection = null;
+        try
+        {
+            connection = connectionPool.getConnection();
+            connection.setAutoCommit(false);
+
+            Order deletedOrder = null;
+            int userId = 0;
+            try (PreparedStatement ps = connection.prepareStatement(sql))
+            {
+                ps.setInt(1, orderId);
+
+                try (ResultSet rs = ps.executeQuery())
+                {
+                    if (rs.next())
+                    {
+                        deletedOrder = buildOrderFromResultSet(rs, null);
+                        userId = rs.getInt("user_id");
+                    }
+                }
+            }
+
+            if (deletedOrder != null && refundUser && deletedOrder.isPaid())
             {
-                result = true;
+                creditUserBalance(connection, userId, deletedOrder.getTotalPrice());
             }
+
+            connection.commit();
+            return deletedOrder;
         }
         catch (SQLException e)
         {
+            rollback(connection);
             throw new DatabaseException("Kunne ikke slette en ordre");
         }
-        return result;
+        finally
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.setAutoCommit(true);
+                    connection.close();
+                }
+                catch (SQLException e)
+                {
+                }
+            }
+        }
     }
 
     public boolean updateOrderStatus(int orderId, boolean paid) throws DatabaseException
     {
-        String sql = "UPDATE orders SET paid = ? WHERE order_id = ?";
-        boolean result = false;
+        return updateOrderStatusReturningPrevious(orderId, paid) != null;
+    }
+
+    /***
+     * Sets the paid flag of an order. The old row is locked and read in the same statement,
+     * so two concurrent updates can never both see the same previous status.
+     * @return the order as it was before the update (without lines and user), or null if no order had the id
+     * @throws DatabaseException
+     */
+    public Order updateOrderStatusReturningPrevious(int orderId, boolean paid) throws DatabaseException
+    {
+        String sql = "UPDATE orders o SET paid = ? " +
+                "FROM (SELECT order_id, paid FROM orders WHERE order_id = ? FOR UPDATE) previous " +
+                "WHERE o.order_id = previous.order_id " +
+                "RETURNING o.order_id, o.order_date, o.pickup_date, previous.paid, o.price_total";
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql))
@@ -235,18 +462,77 @@ public class OrderMapper
             ps.setBoolean(1, paid);
             ps.setInt(2, orderId);
 
-            int rowsAffected = ps.executeUpdate();
-
-            if (rowsAffected == 1)
+            try (ResultSet rs = ps.executeQuery())
             {
-                result = true;
+                if (rs.next())
+                {
+                    return buildOrderFromResultSet(rs, null);
+                }
             }
         }
         catch (SQLException e)
         {
             throw new DatabaseException("Kunne ikke opdatere ordre status" + e.getMessage());
         }
-        return result;
+        return null;
+    }
+
+    private long debitUserBalance(Connection connection, int userId, long amount) throws SQLException, DatabaseException
+    {
+        String sql = "UPDATE users SET balance = balance - ? " +
+                "WHERE user_id = ? AND balance >= ? AND is_guest = false RETURNING balance";
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setLong(1, amount);
+            ps.setInt(2, userId);
+            ps.setLong(3, amount);
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                if (rs.next())
+                {
+                    return rs.getLong("balance");
+                }
+            }
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT balance FROM users WHERE user_id = ?"))
+        {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery())
+            {
+                long balance = rs.next() ? rs.getLong("balance") : 0;
+                throw new DatabaseException("Utilstrækkelig saldo. Dit beløb: " + Money.format(balance) +
+                        " kr. Ordretotal: " + Money.format(amount) + " kr.");
+            }
+        }
+    }
+
+    private void creditUserBalance(Connection connection, int userId, long amount) throws SQLException
+    {
+        String sql = "UPDATE users SET balance = balance + ? WHERE user_id = ?";
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setLong(1, amount);
+            ps.setInt(2, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    private void rollback(Connection connection)
+    {
+        if (connection != null)
+        {
+            try
+            {
+                connection.rollback();
+            }
+            catch (SQLException rollbackException)
+            {
+            }
+        }
     }
 
     private int insertOrder(Connection connection, Order order) throws SQLException
@@ -260,7 +546,7 @@ public class OrderMapper
             ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
             ps.setTimestamp(3, Timestamp.valueOf(order.getPickUpDate()));
             ps.setBoolean(4, order.isPaid());
-            ps.setDouble(5, order.getTotalPrice());
+            ps.setLong(5, order.getTotalPrice());
             ps.executeUpdate();
 
             ResultSet rs = ps.getGeneratedKeys();
@@ -272,6 +558,59 @@ public class OrderMapper
         }
     }
 
+    private List<Order> readOrders(Connection connection, PreparedStatement ps) throws SQLException
+    {
+        List<Order> orders = new ArrayList<>();
+
+        try (ResultSet rs = ps.executeQuery())
+        {
+            while (rs.next())
+            {
+                orders.add(buildOrderFromResultSet(rs, buildUserDTOFromResultSet(rs)));
+            }
+        }
+        attachOrderLines(connection, orders);
+        return orders;
+    }
+
+    private String buildContainsPattern(String searchTerm)
+    {
+        String escaped = searchTerm
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private void attachOrderLines(Connection connection, List<Order> orders) throws SQLException
+    {
+        List<Integer> orderIds = new ArrayList<>();
+        for (Order order : orders)
+        {
+            orderIds.add(order.getOrderId());
+        }
+
+        Map<Integer, List<OrderLine>> orderLinesByOrderId = orderLineMapper.getOrderLinesByOrderIds(connection, orderIds);
+
+        for (Order order : orders)
+        {
+            order.setOrderlines(orderLinesByOrderId.getOrDefault(order.getOrderId(), new ArrayList<>()));
+        }
+    }
+
+    private Order buildOrderFromResultSet(ResultSet rs, UserDTO userDTO) throws SQLException
+    {
+        return new Order(
+                rs.getInt("order_id"),
+                userDTO,
+                rs.getTimestamp("order_date").toLocalDateTime(),
+                rs.getTimestamp("pickup_date").toLocalDateTime(),
+                rs.getBoolean("paid"),
+                new ArrayList<>(),
+                rs.getLong("price_total")
+        );
+    }
+
     private UserDTO buildUserDTOFromResultSet(ResultSet rs) throws SQLException
     {
         return new UserDTO(
@@ -283,7 +622,7 @@ public class OrderMapper
                 rs.getString("street"),
                 rs.getInt("zip_code"),
                 rs.getString("city"),
-                rs.getDouble("balance")
+                rs.getLong("balance")
         );
     }
 }
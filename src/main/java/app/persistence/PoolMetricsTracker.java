@@ -0,0 +1,60 @@
+package app.persistence;
+
+import app.metrics.Histogram;
+import app.metrics.MetricsRegistry;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * HikariCP metrics tracker that publishes pool state and connection timings to the MetricsRegistry.
+ * Registered through HikariConfig.setMetricsTrackerFactory(PoolMetricsTracker::new).
+ */
+public class PoolMetricsTracker implements IMetricsTracker
+{
+    private final Histogram acquireTime;
+    private final Histogram usageTime;
+    private final Histogram creationTime;
+    private final LongAdder timeouts;
+
+    public PoolMetricsTracker(String poolName, PoolStats poolStats)
+    {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+
+        registry.gauge("hikaricp_connections_active", "Connections currently borrowed", "pool", poolName, poolStats::getActiveConnections);
+        registry.gauge("hikaricp_connections_idle", "Idle connections in the pool", "pool", poolName, poolStats::getIdleConnections);
+        registry.gauge("hikaricp_connections_pending", "Threads waiting for a connection", "pool", poolName, poolStats::getPendingThreads);
+        registry.gauge("hikaricp_connections", "Total connections in the pool", "pool", poolName, poolStats::getTotalConnections);
+        registry.gauge("hikaricp_connections_max", "Maximum pool size", "pool", poolName, poolStats::getMaxConnections);
+
+        acquireTime = registry.histogram("hikaricp_connections_acquire_seconds", "Time spent waiting to borrow a connection", "pool", poolName);
+        usageTime = registry.histogram("hikaricp_connections_usage_seconds", "Time a connection was held before being returned", "pool", poolName);
+        creationTime = registry.histogram("hikaricp_connections_creation_seconds", "Time spent opening a physical connection", "pool", poolName);
+        timeouts = registry.counter("hikaricp_connections_timeout_total", "Borrow attempts that timed out", "pool", poolName);
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos)
+    {
+        acquireTime.observeNanos(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis)
+    {
+        usageTime.observe(elapsedBorrowedMillis / 1000.0);
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long connectionCreatedMillis)
+    {
+        creationTime.observe(connectionCreatedMillis / 1000.0);
+    }
+
+    @Override
+    public void recordConnectionTimeout()
+    {
+        timeouts.increment();
+    }
+}
@@ -0,0 +1,348 @@
+package app.persistence;
+
+import app.metrics.Histogram;
+import app.metrics.MetricsRegistry;
+import org.eclipse.jetty.server.session.AbstractSessionDataStore;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.server.session.UnreadableSessionDataException;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * Jetty session data store that keeps sessions in the PostgreSQL table "sessions", with the
+ * attributes encoded by SessionAttributeCodec. Writes are write-behind: store() and delete()
+ * only record the latest state per session in memory, and a background thread flushes all
+ * pending changes as one JDBC batch every flush interval. Loads see pending changes first,
+ * so a session never reads back older data than it wrote. Pending changes are flushed
+ * when Jetty stops, so sessions survive a restart.
+ */
+public class PostgresSessionDataStore extends AbstractSessionDataStore
+{
+    private static final Logger LOGGER = Logger.getLogger("web");
+    private static final SessionRow DELETED = new SessionRow(null, 0, 0, 0, 0, 0, 0, 0, null);
+
+    private final ConnectionPool connectionPool;
+    private final long flushIntervalMs;
+    private final Map<String, SessionRow> pending = new ConcurrentHashMap<>();
+    private final Histogram flushTime;
+    private ScheduledExecutorService flusher;
+
+    public PostgresSessionDataStore(ConnectionPool connectionPool, long flushIntervalMs)
+    {
+        this.connectionPool = connectionPool;
+        this.flushIntervalMs = flushIntervalMs;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("cupcake_sessions_pending_writes", "Session changes waiting for the next write-behind flush", () -> pending.size());
+        this.flushTime = registry.histogram("cupcake_sessions_flush_seconds", "Time spent writing pending sessions to the database");
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "session-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+        flush();
+        super.doStop();
+    }
+
+    @Override
+    public boolean isPassivating()
+    {
+        return true;
+    }
+
+    @Override
+    public boolean doExists(String id) throws Exception
+    {
+        SessionRow row = findRow(id);
+        return row != null && (row.expiry() <= 0 || row.expiry() > System.currentTimeMillis());
+    }
+
+    @Override
+    public void doStore(String id, SessionData data, long lastSaveTime) throws Exception
+    {
+        pending.put(id, new SessionRow(
+                data.getLastNode(),
+                data.getCreated(),
+                data.getAccessed(),
+                data.getLastAccessed(),
+                data.getCookieSet(),
+                data.getExpiry(),
+                data.getMaxInactiveMs(),
+                data.getLastSaved(),
+                SessionAttributeCodec.encode(data.getAllAttributes())
+        ));
+    }
+
+    @Override
+    public SessionData doLoad(String id) throws Exception
+    {
+        SessionRow row = findRow(id);
+        if (row == null)
+        {
+            return null;
+        }
+
+        SessionData data = newSessionData(id, row.created(), row.accessed(), row.lastAccessed(), row.maxInactiveMs());
+        data.setCookieSet(row.cookieSet());
+        data.setLastNode(row.lastNode());
+        data.setLastSaved(row.lastSaved());
+        data.setExpiry(row.expiry());
+
+        try
+        {
+            data.putAllAttributes(SessionAttributeCodec.decode(row.attributes()));
+        }
+        catch (IOException e)
+        {
+            throw new UnreadableSessionDataException(id, _context, e);
+        }
+        return data;
+    }
+
+    @Override
+    public boolean delete(String id) throws Exception
+    {
+        boolean existed = findRow(id) != null;
+        pending.put(id, DELETED);
+        return existed;
+    }
+
+    @Override
+    public Set<String> doCheckExpired(Set<String> candidates, long time)
+    {
+        Set<String> expired = new HashSet<>();
+        for (String id : candidates)
+        {
+            try
+            {
+                SessionRow row = findRow(id);
+                if (row == null || (row.expiry() > 0 && row.expiry() <= time))
+                {
+                    expired.add(id);
+                }
+            }
+            catch (SQLException e)
+            {
+                LOGGER.log(Level.WARNING, "Could not check expiry of session " + id, e);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public Set<String> doGetExpired(long time)
+    {
+        String sql = "SELECT session_id FROM sessions WHERE context_path = ? AND vhost = ? AND expiry > 0 AND expiry <= ?";
+        Set<String> expired = new HashSet<>();
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setString(1, _context.getCanonicalContextPath());
+            ps.setString(2, _context.getVhost());
+            ps.setLong(3, time);
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                while (rs.next())
+                {
+                    expired.add(rs.getString("session_id"));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not look up expired sessions", e);
+        }
+        return expired;
+    }
+
+    @Override
+    public void doCleanOrphans(long time)
+    {
+        String sql = "DELETE FROM sessions WHERE context_path = ? AND vhost = ? AND expiry > 0 AND expiry <= ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setString(1, _context.getCanonicalContextPath());
+            ps.setString(2, _context.getVhost());
+            ps.setLong(3, time);
+            ps.executeUpdate();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not delete orphaned sessions", e);
+        }
+    }
+
+    /***
+     * Writes every pending change in one transaction. Entries are only dropped from the
+     * pending map after the commit and only if no newer change replaced them meanwhile, so a
+     * failed flush is simply retried on the next run.
+     */
+    void flush()
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<String, SessionRow> batch = new HashMap<>(pending);
+        String upsertSql = "INSERT INTO sessions (session_id, context_path, vhost, last_node, created, accessed, " +
+                "last_accessed, cookie_set, expiry, max_inactive_ms, last_saved, attributes) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (session_id, context_path, vhost) DO UPDATE SET " +
+                "last_node = EXCLUDED.last_node, accessed = EXCLUDED.accessed, last_accessed = EXCLUDED.last_accessed, " +
+                "cookie_set = EXCLUDED.cookie_set, expiry = EXCLUDED.expiry, max_inactive_ms = EXCLUDED.max_inactive_ms, " +
+                "last_saved = EXCLUDED.last_saved, attributes = EXCLUDED.attributes";
+        String deleteSql = "DELETE FROM sessions WHERE session_id = ? AND context_path = ? AND vhost = ?";
+
+        Connection connection = null;
+        try
+        {
+            connection = connectionPool.getConnection();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement upsert = connection.prepareStatement(upsertSql);
+                 PreparedStatement delete = connection.prepareStatement(deleteSql))
+            {
+                for (Map.Entry<String, SessionRow> entry : batch.entrySet())
+                {
+                    SessionRow row = entry.getValue();
+                    if (row == DELETED)
+                    {
+                        delete.setString(1, entry.getKey());
+                        delete.setString(2, _context.getCanonicalContextPath());
+                        delete.setString(3, _context.getVhost());
+                        delete.addBatch();
+                    }
+                    else
+                    {
+                        upsert.setString(1, entry.getKey());
+                        upsert.setString(2, _context.getCanonicalContextPath());
+                        upsert.setString(3, _context.getVhost());
+                        upsert.setString(4, row.lastNode());
+                        upsert.setLong(5, row.created());
+                        upsert.setLong(6, row.accessed());
+                        upsert.setLong(7, row.lastAccessed());
+                        upsert.setLong(8, row.cookieSet());
+                        upsert.setLong(9, row.expiry());
+                        upsert.setLong(10, row.maxInactiveMs());
+                        upsert.setLong(11, row.lastSaved());
+                        upsert.setBytes(12, row.attributes());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+            }
+            connection.commit();
+
+            for (Map.Entry<String, SessionRow> entry : batch.entrySet())
+            {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+            flushTime.observeNanos(System.nanoTime() - start);
+        }
+        catch (SQLException e)
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.rollback();
+                }
+                catch (SQLException rollbackException)
+                {
+                }
+            }
+            LOGGER.log(Level.WARNING, "Could not flush " + batch.size() + " sessions, retrying on next flush", e);
+        }
+        finally
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.setAutoCommit(true);
+                    connection.close();
+                }
+                catch (SQLException e)
+                {
+                }
+            }
+        }
+    }
+
+    private SessionRow findRow(String id) throws SQLException
+    {
+        SessionRow pendingRow = pending.get(id);
+        if (pendingRow != null)
+        {
+            return pendingRow == DELETED ? null : pendingRow;
+        }
+
+        String sql = "SELECT last_node, created, accessed, last_accessed, cookie_set, expiry, max_inactive_ms, last_saved, attributes " +
+                "FROM sessions WHERE session_id = ? AND context_path = ? AND vhost = ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setString(1, id);
+            ps.setString(2, _context.getCanonicalContextPath());
+            ps.setString(3, _context.getVhost());
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                if (!rs.next())
+                {
+                    return null;
+                }
+                return new SessionRow(
+                        rs.getString("last_node"),
+                        rs.getLong("created"),
+                        rs.getLong("accessed"),
+                        rs.getLong("last_accessed"),
+                        rs.getLong("cookie_set"),
+                        rs.getLong("expiry"),
+                        rs.getLong("max_inactive_ms"),
+                        rs.getLong("last_saved"),
+                        rs.getBytes("attributes")
+                );
+            }
+        }
+    }
+
+    private record SessionRow(String lastNode, long created, long accessed, long lastAccessed, long cookieSet,
+                              long expiry, long maxInactiveMs, long lastSaved, byte[] attributes)
+    {
+    }
+}
@@ -0,0 +1,24 @@
+package app.persistence;
+
+import app.metrics.MetricsRegistry;
+
+/***
+ * Records per mapper method SQL latency and returned row counts in the MetricsRegistry.
+ * Mappers take System.nanoTime() before borrowing a connection and call record() once
+ * the rows are read, so the timing includes the wait for a pooled connection.
+ */
+public class QueryMetrics
+{
+    private QueryMetrics()
+    {
+    }
+
+    public static void record(String query, long startNanos, int rows)
+    {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.histogram("cupcake_query_duration_seconds", "Time spent in mapper methods, including connection acquisition", "query", query)
+                .observeNanos(System.nanoTime() - startNanos);
+        registry.counter("cupcake_query_rows_total", "Rows returned or affected by mapper methods", "query", query)
+                .add(rows);
+    }
+}
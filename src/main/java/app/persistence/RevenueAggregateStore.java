@@ -0,0 +1,211 @@
+package app.persistence;
+
+import app.dto.RevenueDTO;
+import app.exceptions.DatabaseException;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/***
+ * Running revenue totals for paid orders: overall revenue, number of paid orders and one
+ * bucket per month. Rebuilt from SQL once at startup and afterwards kept up to date by
+ * OrderServiceImpl whenever an order is created paid, changes paid status or is deleted,
+ * so the statistics never have to load orders.
+ *
+ * Those updates run through change(), together with the database write they belong to. A
+ * rebuild waits for the changes under way and holds new ones back while it sums, so an order
+ * is counted either by the rebuild or by its own update, never by both. That makes a rebuild
+ * safe at any time, including the lazy one on first read when the startup rebuild failed.
+ */
+public class RevenueAggregateStore
+{
+    private final StatisticMapper statisticMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+    private final Map<YearMonth, Bucket> months = new HashMap<>();
+    private long totalRevenue;
+    private long paidOrderCount;
+    private volatile boolean loaded = false;
+
+    public RevenueAggregateStore(StatisticMapper statisticMapper)
+    {
+        this.statisticMapper = statisticMapper;
+    }
+
+    /***
+     * Replaces all aggregates with fresh sums from the database. Waits for running changes to
+     * finish and blocks new ones until the sums are read.
+     * @throws DatabaseException
+     */
+    public void rebuild() throws DatabaseException
+    {
+        changeLock.writeLock().lock();
+        lock.lock();
+        try
+        {
+            months.clear();
+            totalRevenue = 0;
+            paidOrderCount = 0;
+            loaded = false;
+
+            for (RevenueDTO month : statisticMapper.getRevenueByMonth())
+            {
+                months.put(month.getMonth(), new Bucket(month.getRevenue(), month.getOrderCount()));
+                totalRevenue += month.getRevenue();
+                paidOrderCount += month.getOrderCount();
+            }
+            loaded = true;
+        }
+        finally
+        {
+            lock.unlock();
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    /***
+     * Runs a database change of paid orders and the addPaidOrder or removePaidOrder calls that
+     * follow from it as one step with respect to rebuild(). Changes do not block each other.
+     */
+    public <T> T change(Change<T> change) throws DatabaseException
+    {
+        changeLock.readLock().lock();
+        try
+        {
+            return change.run();
+        }
+        finally
+        {
+            changeLock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoaded()
+    {
+        return loaded;
+    }
+
+    public void addPaidOrder(LocalDateTime orderDate, long totalPrice)
+    {
+        apply(orderDate, totalPrice, 1);
+    }
+
+    public void removePaidOrder(LocalDateTime orderDate, long totalPrice)
+    {
+        apply(orderDate, -totalPrice, -1);
+    }
+
+    public long getTotalRevenue() throws DatabaseException
+    {
+        ensureLoaded();
+        lock.lock();
+        try
+        {
+            return totalRevenue;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public long getPaidOrderCount() throws DatabaseException
+    {
+        ensureLoaded();
+        lock.lock();
+        try
+        {
+            return paidOrderCount;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public long getMonthlyRevenue(YearMonth month) throws DatabaseException
+    {
+        ensureLoaded();
+        lock.lock();
+        try
+        {
+            Bucket bucket = months.get(month);
+            return bucket == null ? 0 : bucket.revenue;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public long getAverageOrderValue() throws DatabaseException
+    {
+        ensureLoaded();
+        lock.lock();
+        try
+        {
+            return paidOrderCount == 0 ? 0 : Math.round((double) totalRevenue / paidOrderCount);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void apply(LocalDateTime orderDate, long revenue, int orders)
+    {
+        lock.lock();
+        try
+        {
+            if (!loaded)
+            {
+                // The first read rebuilds from the database, which already contains this change
+                return;
+            }
+
+            Bucket bucket = months.computeIfAbsent(YearMonth.from(orderDate), key -> new Bucket(0, 0));
+            bucket.revenue += revenue;
+            bucket.orders += orders;
+            if (bucket.orders == 0)
+            {
+                months.remove(YearMonth.from(orderDate));
+            }
+
+            totalRevenue += revenue;
+            paidOrderCount += orders;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void ensureLoaded() throws DatabaseException
+    {
+        if (!loaded)
+        {
+            rebuild();
+        }
+    }
+
+    public interface Change<T>
+    {
+        T run() throws DatabaseException;
+    }
+
+    private static final class Bucket
+    {
+        private long revenue;
+        private long orders;
+
+        private Bucket(long revenue, long orders)
+        {
+            this.revenue = revenue;
+            this.orders = orders;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package app.persistence;
+
+import app.dto.UserDTO;
+import app.entities.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Compact binary encoding of the session attributes the shop uses: strings, numbers,
+ * booleans, dates, the shopping cart, the logged in user and the checkout state. Each value
+ * is written field by field behind a one byte type tag instead of with Java serialization,
+ * so the entities do not have to be Serializable and a full cart is a few hundred bytes.
+ * The user's password hash is never written.
+ */
+public final class SessionAttributeCodec
+{
+    private static final byte FORMAT_VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte LOCAL_DATE_TIME = 6;
+    private static final byte SHOPPING_CART = 7;
+    private static final byte USER = 8;
+    private static final byte USER_DTO = 9;
+    private static final byte ORDER = 10;
+
+    private SessionAttributeCodec()
+    {
+    }
+
+    public static byte[] encode(Map<String, Object> attributes) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(attributes.size());
+            for (Map.Entry<String, Object> attribute : attributes.entrySet())
+            {
+                out.writeUTF(attribute.getKey());
+                writeValue(out, attribute.getKey(), attribute.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Map<String, Object> decode(byte[] encoded) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded)))
+        {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION)
+            {
+                throw new IOException("Unknown session format version " + version);
+            }
+
+            int size = in.readUnsignedShort();
+            Map<String, Object> attributes = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++)
+            {
+                attributes.put(in.readUTF(), readValue(in));
+            }
+            return attributes;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, String name, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof String string)
+        {
+            out.writeByte(STRING);
+            out.writeUTF(string);
+        }
+        else if (value instanceof Double number)
+        {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        }
+        else if (value instanceof Integer number)
+        {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        }
+        else if (value instanceof Long number)
+        {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        }
+        else if (value instanceof Boolean flag)
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(flag);
+        }
+        else if (value instanceof LocalDateTime dateTime)
+        {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeDateTime(out, dateTime);
+        }
+        else if (value instanceof ShoppingCart cart)
+        {
+            out.writeByte(SHOPPING_CART);
+            writeOrderLines(out, cart.getShoppingCart());
+        }
+        else if (value instanceof User user)
+        {
+            out.writeByte(USER);
+            writeUser(out, user);
+        }
+        else if (value instanceof UserDTO userDTO)
+        {
+            out.writeByte(USER_DTO);
+            writeUserDTO(out, userDTO);
+        }
+        else if (value instanceof Order order)
+        {
+            out.writeByte(ORDER);
+            writeOrder(out, order);
+        }
+        else
+        {
+            throw new NotSerializableException("Session attribute " + name + " has unsupported type " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException
+    {
+        byte type = in.readByte();
+        switch (type)
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readUTF();
+            case DOUBLE:
+                return in.readDouble();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case LOCAL_DATE_TIME:
+                return readDateTime(in);
+            case SHOPPING_CART:
+                return new ShoppingCart(readOrderLines(in));
+            case USER:
+                return readUser(in);
+            case USER_DTO:
+                return readUserDTO(in);
+            case ORDER:
+                return readOrder(in);
+            default:
+                throw new IOException("Unknown session attribute type " + type);
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException
+    {
+        out.writeInt(user.getUserId());
+        writeNullableString(out, user.getFirstName());
+        writeNullableString(out, user.getLastName());
+        writeNullableString(out, user.getEmail());
+        out.writeInt(user.getPhoneNumber());
+        writeNullableString(out, user.getStreet());
+        out.writeInt(user.getZipCode());
+        writeNullableString(out, user.getCity());
+        out.writeLong(user.getBalance());
+        out.writeBoolean(user.isAdmin());
+        out.writeBoolean(user.isGuest());
+    }
+
+    private static User readUser(DataInputStream in) throws IOException
+    {
+        return new User(
+                in.readInt(),
+                readNullableString(in),
+                readNullableString(in),
+                readNullableString(in),
+                in.readInt(),
+                readNullableString(in),
+                in.readInt(),
+                readNullableString(in),
+                in.readLong(),
+                in.readBoolean(),
+                in.readBoolean()
+        );
+    }
+
+    private static void writeUserDTO(DataOutputStream out, UserDTO userDTO) throws IOException
+    {
+        out.writeInt(userDTO.getUserId());
+        writeNullableString(out, userDTO.getFirstName());
+        writeNullableString(out, userDTO.getLastName());
+        writeNullableString(out, userDTO.getEmail());
+        out.writeInt(userDTO.getPhoneNumber());
+        writeNullableString(out, userDTO.getStreet());
+        out.writeInt(userDTO.getZipCode());
+        writeNullableString(out, userDTO.getCity());
+        out.writeLong(userDTO.getBalance());
+    }
+
+    private static UserDTO readUserDTO(DataInputStream in) throws IOException
+    {
+        return new UserDTO(
+                in.readInt(),
+                readNullableString(in),
+                readNullableString(in),
+                readNullableString(in),
+                in.readInt(),
+                readNullableString(in),
+                in.readInt(),
+                readNullableString(in),
+                in.readLong()
+        );
+    }
+
+    private static void writeOrder(DataOutputStream out, Order order) throws IOException
+    {
+        out.writeInt(order.getOrderId());
+        out.writeBoolean(order.getUserDTO() != null);
+        if (order.getUserDTO() != null)
+        {
+            writeUserDTO(out, order.getUserDTO());
+        }
+        writeDateTime(out, order.getOrderDate());
+        writeDateTime(out, order.getPickUpDate());
+        out.writeBoolean(order.isPaid());
+        writeOrderLines(out, order.getOrderlines());
+        out.writeLong(order.getTotalPrice());
+    }
+
+    private static Order readOrder(DataInputStream in) throws IOException
+    {
+        int orderId = in.readInt();
+        UserDTO userDTO = in.readBoolean() ? readUserDTO(in) : null;
+        return new Order(
+                orderId,
+                userDTO,
+                readDateTime(in),
+                readDateTime(in),
+                in.readBoolean(),
+                readOrderLines(in),
+                in.readLong()
+        );
+    }
+
+    private static void writeOrderLines(DataOutputStream out, List<OrderLine> orderLines) throws IOException
+    {
+        out.writeShort(orderLines.size());
+        for (OrderLine orderLine : orderLines)
+        {
+            Cupcake cupcake = orderLine.getCupcake();
+            out.writeInt(orderLine.getOrderLineId());
+            out.writeInt(cupcake.getBottom().getBottomId());
+            writeNullableString(out, cupcake.getBottom().getName());
+            out.writeLong(cupcake.getBottom().getPrice());
+            out.writeInt(cupcake.getTopping().getToppingId());
+            writeNullableString(out, cupcake.getTopping().getName());
+            out.writeLong(cupcake.getTopping().getPrice());
+            out.writeLong(cupcake.getCupcakePrice());
+            out.writeInt(orderLine.getQuantity());
+            out.writeLong(orderLine.getOrderLinePrice());
+        }
+    }
+
+    private static List<OrderLine> readOrderLines(DataInputStream in) throws IOException
+    {
+        int size = in.readUnsignedShort();
+        List<OrderLine> orderLines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            int orderLineId = in.readInt();
+            Bottom bottom = new Bottom(in.readInt(), readNullableString(in), in.readLong());
+            Topping topping = new Topping(in.readInt(), readNullableString(in), in.readLong());
+            Cupcake cupcake = new Cupcake(bottom, topping, in.readLong());
+            orderLines.add(new OrderLine(orderLineId, cupcake, in.readInt(), in.readLong()));
+        }
+        return orderLines;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException
+    {
+        out.writeBoolean(dateTime != null);
+        if (dateTime != null)
+        {
+            out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dateTime.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException
+    {
+        if (!in.readBoolean())
+        {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null)
+        {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,121 @@
+package app.persistence;
+
+import app.dto.RevenueDTO;
+import app.exceptions.DatabaseException;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * Revenue statistics computed in PostgreSQL. Every query filters on paid and reads only
+ * order_date and price_total, so they are answered from the partial covering index
+ * orders_paid_order_date_idx without loading orders or order lines.
+ */
+public class StatisticMapper
+{
+    private final ConnectionPool connectionPool;
+
+    public StatisticMapper(ConnectionPool connectionPool)
+    {
+        this.connectionPool = connectionPool;
+    }
+
+    /***
+     * @return revenue, order count and average order value over all paid orders (month is null)
+     * @throws DatabaseException
+     */
+    public RevenueDTO getRevenueSummary() throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT COALESCE(SUM(price_total), 0) AS revenue, COUNT(*) AS order_count, " +
+                "COALESCE(ROUND(AVG(price_total)), 0) AS average_order_value " +
+                "FROM orders WHERE paid";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery())
+        {
+            rs.next();
+            RevenueDTO summary = buildRevenueFromResultSet(rs, null);
+            QueryMetrics.record("StatisticMapper.getRevenueSummary", start, 1);
+            return summary;
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke hente omsætning: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Revenue for a single month. The month is given as a half-open date range rather than
+     * date_trunc(order_date), so the index on order_date can be range scanned.
+     * @throws DatabaseException
+     */
+    public RevenueDTO getMonthlyRevenue(YearMonth month) throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT COALESCE(SUM(price_total), 0) AS revenue, COUNT(*) AS order_count, " +
+                "COALESCE(ROUND(AVG(price_total)), 0) AS average_order_value " +
+                "FROM orders WHERE paid AND order_date >= ? AND order_date < ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                rs.next();
+                RevenueDTO revenue = buildRevenueFromResultSet(rs, month);
+                QueryMetrics.record("StatisticMapper.getMonthlyRevenue", start, 1);
+                return revenue;
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke hente omsætning for " + month + ": " + e.getMessage());
+        }
+    }
+
+    /***
+     * @return one entry per month that has paid orders, oldest month first
+     * @throws DatabaseException
+     */
+    public List<RevenueDTO> getRevenueByMonth() throws DatabaseException
+    {
+        long start = System.nanoTime();
+        String sql = "SELECT date_trunc('month', order_date) AS month, SUM(price_total) AS revenue, " +
+                "COUNT(*) AS order_count, ROUND(AVG(price_total)) AS average_order_value " +
+                "FROM orders WHERE paid GROUP BY 1 ORDER BY 1";
+        List<RevenueDTO> revenue = new ArrayList<>();
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery())
+        {
+            while (rs.next())
+            {
+                revenue.add(buildRevenueFromResultSet(rs, YearMonth.from(rs.getTimestamp("month").toLocalDateTime())));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Kunne ikke hente omsætning: " + e.getMessage());
+        }
+        QueryMetrics.record("StatisticMapper.getRevenueByMonth", start, revenue.size());
+        return revenue;
+    }
+
+    private RevenueDTO buildRevenueFromResultSet(ResultSet rs, YearMonth month) throws SQLException
+    {
+        return new RevenueDTO(
+                month,
+                rs.getLong("revenue"),
+                rs.getInt("order_count"),
+                rs.getLong("average_order_value")
+        );
+    }
+}
@@ -18,6 +18,7 @@ public class ToppingMapper
 
     public List<Topping> getAllToppings() throws DatabaseException
     {
+        long start = System.nanoTime();
         List<Topping> toppingList = new ArrayList<>();
         String sql = "SELECT * FROM toppings";
         try (Connection connection = connectionPool.getConnection();
@@ -29,7 +30,7 @@ public class ToppingMapper
                 Topping t = new Topping(
                         rs.getInt("topping_id"),
                         rs.getString("topping_flavour"),
-                        rs.getDouble("topping_price")
+                        rs.getLong("topping_price")
                 );
                 toppingList.add(t);
             }
@@ -38,6 +39,7 @@ public class ToppingMapper
         {
             throw new DatabaseException("Database error while fetching toppings: " + e);
         }
+        QueryMetrics.record("ToppingMapper.getAllToppings", start, toppingList.size());
         return toppingList;
     }
 
@@ -54,7 +56,7 @@ public class ToppingMapper
                 {
                     return new Topping(rs.getInt("topping_id"),
                             rs.getString("topping_flavour"),
-                            rs.getDouble("topping_price"));
+                            rs.getLong("topping_price"));
                 }
                 return null;
             }
@@ -65,7 +67,7 @@ public class ToppingMapper
         }
     }
 
-    public Topping createTopping(String toppingFlavour, double toppingPrice) throws DatabaseException
+    public Topping createTopping(String toppingFlavour, long toppingPrice) throws DatabaseException
     {
         String sql = "INSERT INTO toppings (topping_flavour, topping_price)" +
                 "VALUES(?,?)";
@@ -75,7 +77,7 @@ public class ToppingMapper
         {
 
             ps.setString(1, toppingFlavour);
-            ps.setDouble(2, toppingPrice);
+            ps.setLong(2, toppingPrice);
 
             int rowsAffected = ps.executeUpdate();
 
@@ -115,7 +117,7 @@ public class ToppingMapper
              PreparedStatement ps = connection.prepareStatement(sql))
         {
             ps.setString(1, topping.getName());
-            ps.setDouble(2, topping.getPrice());
+            ps.setLong(2, topping.getPrice());
             ps.setInt(3, topping.getToppingId());
 
             int rowsAffected = ps.executeUpdate();
@@ -7,10 +7,20 @@ import app.exceptions.DatabaseException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class UserMapper
 {
+    private static final long ADMIN_CACHE_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
     private ConnectionPool connectionPool;
+    private final Map<Integer, AdminStatus> adminStatuses = new ConcurrentHashMap<>();
+    private final Map<Integer, String> zipCodes = new ConcurrentHashMap<>();
+    private final ReentrantLock zipCodeLoadLock = new ReentrantLock();
+    private volatile boolean zipCodesLoaded = false;
 
     public UserMapper(ConnectionPool connectionPool)
     {
@@ -22,11 +32,12 @@ public class UserMapper
         User user = null;
         String sql = "INSERT INTO users (firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING user_id";
-        ensureZipExists(zipcode, city);
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
         {
+            String storedCity = ensureZipExists(connection, zipcode, city);
+
             ps.setString(1, firstname);
             ps.setString(2, lastname);
             ps.setString(3, email.toLowerCase());
@@ -34,7 +45,7 @@ public class UserMapper
             ps.setInt(5, phonenumber);
             ps.setString(6, street);
             ps.setInt(7, zipcode);
-            ps.setDouble(8, 0.0);       // default balance
+            ps.setLong(8, 0);       // default balance
             ps.setBoolean(9, false); // default admin-status
             ps.setBoolean(10, false); // default guest-status
 
@@ -49,7 +60,7 @@ public class UserMapper
             if (rs.next())
             {
                 int userId = rs.getInt(1);
-                return getUserById(userId);
+                return new User(userId, firstname, lastname, email.toLowerCase(), phonenumber, street, zipcode, storedCity, 0, false, false);
             }
         }
         catch (SQLException e)
@@ -98,6 +109,7 @@ public class UserMapper
 
     public User getUserById(int userId) throws DatabaseException
     {
+        long start = System.nanoTime();
         String sql = "SELECT u.user_id, u.firstname, u.lastname, u.email, u.phonenumber, " +
                 "u.street, u.zip_code, u.balance, u.admin, u.is_guest, z.city " +
                 "FROM users u " +
@@ -112,7 +124,9 @@ public class UserMapper
 
             if (rs.next())
             {
-                return buildUserFromResultSet(rs);
+                User user = buildUserFromResultSet(rs);
+                QueryMetrics.record("UserMapper.getUserById", start, 1);
+                return user;
             }
             else
             {
@@ -127,6 +141,7 @@ public class UserMapper
 
     public User getUserByEmail(String email) throws DatabaseException
     {
+        long start = System.nanoTime();
         User user = null;
         String sql = "SELECT * FROM users u JOIN zip_codes z ON u.zip_code = z.zip_code WHERE email = ?";
 
@@ -138,7 +153,7 @@ public class UserMapper
 
             if (rs.next())
             {
-                return new User(
+                user = new User(
                         rs.getInt("user_id"),
                         rs.getString("firstname"),
                         rs.getString("lastname"),
@@ -148,10 +163,12 @@ public class UserMapper
                         rs.getString("street"),
                         rs.getInt("zip_code"),
                         rs.getString("city"),
-                        rs.getDouble("balance"),
+                        rs.getLong("balance"),
                         rs.getBoolean("admin"),
                         rs.getBoolean("is_guest")
                 );
+                QueryMetrics.record("UserMapper.getUserByEmail", start, 1);
+                return user;
             }
             else
             {
@@ -167,12 +184,13 @@ public class UserMapper
     public boolean updateUser(User user) throws DatabaseException
     {
         String sql = "UPDATE users SET firstname = ?, lastname = ?, email = ?, password = ?, phonenumber = ?, street = ?, admin = ?, zip_code = ?, balance = ? WHERE user_id = ?";
-        ensureZipExists(user.getZipCode(), user.getCity());
         boolean result = false;
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql))
         {
+            ensureZipExists(connection, user.getZipCode(), user.getCity());
+
             ps.setString(1, user.getFirstName());
             ps.setString(2, user.getLastName());
             ps.setString(3, user.getEmail());
@@ -181,10 +199,11 @@ public class UserMapper
             ps.setString(6, user.getStreet());
             ps.setBoolean(7, user.isAdmin());
             ps.setInt(8, user.getZipCode());
-            ps.setDouble(9, user.getBalance());
+            ps.setLong(9, user.getBalance());
             ps.setInt(10, user.getUserId());
 
             int rowsAffected = ps.executeUpdate();
+            adminStatuses.remove(user.getUserId());
 
             if (rowsAffected == 1)
             {
@@ -212,6 +231,7 @@ public class UserMapper
         {
             ps.setInt(1, userId);
             int rowsAffected = ps.executeUpdate();
+            adminStatuses.remove(userId);
 
             if (rowsAffected == 1)
             {
@@ -225,15 +245,54 @@ public class UserMapper
         return result;
     }
 
-    public boolean updateUserBalance(int userId, double amount) throws DatabaseException
+    /***
+     * Checks the admin flag of a user. Answers are cached for 30 seconds per user, and
+     * updateUser and deleteUser drop the cached answer, so a role change made through this
+     * mapper takes effect immediately.
+     * @return true if the user exists and is an administrator
+     * @throws DatabaseException
+     */
+    public boolean isAdmin(int userId) throws DatabaseException
     {
+        long now = System.nanoTime();
+        AdminStatus cached = adminStatuses.get(userId);
+        if (cached != null && now - cached.checkedAt() < ADMIN_CACHE_TTL_NANOS)
+        {
+            return cached.admin();
+        }
+
+        long start = System.nanoTime();
+        String sql = "SELECT admin FROM users WHERE user_id = ?";
+
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, userId);
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                boolean admin = rs.next() && rs.getBoolean("admin");
+                adminStatuses.put(userId, new AdminStatus(admin, now));
+                QueryMetrics.record("UserMapper.isAdmin", start, 1);
+                return admin;
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new DatabaseException("Fejl ved kontrol af administrator: " + e.getMessage());
+        }
+    }
+
+    public boolean updateUserBalance(int userId, long amount) throws DatabaseException
+    {
+        long start = System.nanoTime();
         String sql = "UPDATE users SET balance = ? WHERE user_id = ? AND is_guest = false";
         boolean result = false;
 
         try (Connection connection = connectionPool.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql))
         {
-            ps.setDouble(1, amount);
+            ps.setLong(1, amount);
             ps.setInt(2, userId);
 
             int rowsAffected = ps.executeUpdate();
@@ -247,11 +306,13 @@ public class UserMapper
         {
             throw new DatabaseException("Beløbet " + amount + ",- blev ikke tilføjet til bruger med id: " + userId);
         }
+        QueryMetrics.record("UserMapper.updateUserBalance", start, result ? 1 : 0);
         return result;
     }
 
     public List<User> getAllUsers() throws DatabaseException
     {
+        long start = System.nanoTime();
         String sql = "SELECT users.*, zip_codes.city FROM users JOIN zip_codes ON users.zip_code = zip_codes.zip_code";
         List<User> users = new ArrayList<>();
 
@@ -271,7 +332,7 @@ public class UserMapper
                         rs.getString("street"),
                         rs.getInt("zip_code"),
                         rs.getString("city"),
-                        rs.getDouble("balance"),
+                        rs.getLong("balance"),
                         rs.getBoolean("admin"),
                         rs.getBoolean("is_guest")
                 ));
@@ -281,11 +342,13 @@ public class UserMapper
         {
             throw new DatabaseException("Fejl under hentning af alle brugere");
         }
+        QueryMetrics.record("UserMapper.getAllUsers", start, users.size());
         return users;
     }
 
     public User login(String email, String password) throws DatabaseException
     {
+        long start = System.nanoTime();
         String sql = "SELECT u.user_id, u.firstname, u.lastname, u.email, u.phonenumber, " +
                 "u.street, u.zip_code, u.balance, u.admin, u.is_guest, z.city " +
                 "FROM users u " +
@@ -301,7 +364,9 @@ public class UserMapper
             ResultSet rs = ps.executeQuery();
             if (rs.next())
             {
-                return buildUserFromResultSet(rs);
+                User user = buildUserFromResultSet(rs);
+                QueryMetrics.record("UserMapper.login", start, 1);
+                return user;
             }
             throw new DatabaseException("Forkert email eller password");
         }
@@ -311,29 +376,65 @@ public class UserMapper
         }
     }
 
-    private void ensureZipExists(int zipCode, String city) throws DatabaseException
+    /***
+     * Makes sure the zip code exists before a user row references it. Zip codes already in the
+     * in-memory index cost no database trip; unknown ones are inserted on the caller's connection.
+     * When the zip code is already there, e.g. inserted by a concurrent registration, the no-op
+     * update returns the existing row, so the city is always the one in the database.
+     * @return the city stored for the zip code
+     */
+    private String ensureZipExists(Connection connection, int zipCode, String city) throws SQLException
     {
-        String checkSql = "SELECT zip_code FROM zip_codes WHERE zip_code = ?";
+        loadZipCodes(connection);
 
-        try (Connection connection = connectionPool.getConnection();
-             PreparedStatement ps = connection.prepareStatement(checkSql))
+        String storedCity = zipCodes.get(zipCode);
+        if (storedCity != null)
+        {
+            return storedCity;
+        }
+
+        String upsertSql = "INSERT INTO zip_codes (zip_code, city) VALUES (?, ?) " +
+                "ON CONFLICT (zip_code) DO UPDATE SET zip_code = EXCLUDED.zip_code RETURNING city";
+        try (PreparedStatement ps = connection.prepareStatement(upsertSql))
         {
             ps.setInt(1, zipCode);
-            ResultSet rs = ps.executeQuery();
-            if (!rs.next())
+            ps.setString(2, city);
+            try (ResultSet rs = ps.executeQuery())
+            {
+                rs.next();
+                storedCity = rs.getString("city");
+            }
+        }
+        zipCodes.put(zipCode, storedCity);
+        return storedCity;
+    }
+
+    private void loadZipCodes(Connection connection) throws SQLException
+    {
+        if (zipCodesLoaded)
+        {
+            return;
+        }
+
+        zipCodeLoadLock.lock();
+        try
+        {
+            if (!zipCodesLoaded)
             {
-                String insertSql = "INSERT INTO zip_codes (zip_code, city) VALUES (?, ?)";
-                try (PreparedStatement insertPs = connection.prepareStatement(insertSql))
+                try (PreparedStatement ps = connection.prepareStatement("SELECT zip_code, city FROM zip_codes");
+                     ResultSet rs = ps.executeQuery())
                 {
-                    insertPs.setInt(1, zipCode);
-                    insertPs.setString(2, city);
-                    insertPs.executeUpdate();
+                    while (rs.next())
+                    {
+                        zipCodes.put(rs.getInt("zip_code"), rs.getString("city"));
+                    }
                 }
+                zipCodesLoaded = true;
             }
         }
-        catch (SQLException e)
+        finally
         {
-            throw new DatabaseException("Kunne ikke indsætte postnummer og by");
+            zipCodeLoadLock.unlock();
         }
     }
 
@@ -348,9 +449,13 @@ public class UserMapper
                 rs.getString("street"),
                 rs.getInt("zip_code"),
                 rs.getString("city"),
-                rs.getDouble("balance"),
+                rs.getLong("balance"),
                 rs.getBoolean("admin"),
                 rs.getBoolean("is_guest")
         );
     }
+
+    private record AdminStatus(boolean admin, long checkedAt)
+    {
+    }
 }
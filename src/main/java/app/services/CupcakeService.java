@@ -17,9 +17,9 @@ public interface CupcakeService
 
     Topping getToppingById(int id) throws DatabaseException;
 
-    void createNewBottomFlavour(String bottomFlavour, double bottomPrice) throws DatabaseException;
+    void createNewBottomFlavour(String bottomFlavour, long bottomPrice) throws DatabaseException;
 
-    void createNewToppingFlavour(String toppingFlavour, double toppingPrice) throws DatabaseException;
+    void createNewToppingFlavour(String toppingFlavour, long toppingPrice) throws DatabaseException;
 
     void deleteBottomFlavour(Bottom bottom) throws DatabaseException;
 
@@ -4,6 +4,7 @@ import app.entities.Bottom;
 import app.entities.Topping;
 import app.exceptions.DatabaseException;
 import app.persistence.BottomMapper;
+import app.persistence.CatalogCache;
 import app.persistence.ToppingMapper;
 
 import java.util.List;
@@ -12,23 +13,25 @@ public class CupcakeServiceImpl implements CupcakeService
 {
     private final BottomMapper bottomMapper;
     private final ToppingMapper toppingMapper;
+    private final CatalogCache catalogCache;
 
-    public CupcakeServiceImpl(BottomMapper bottomMapper, ToppingMapper toppingMapper)
+    public CupcakeServiceImpl(BottomMapper bottomMapper, ToppingMapper toppingMapper, CatalogCache catalogCache)
     {
         this.bottomMapper = bottomMapper;
         this.toppingMapper = toppingMapper;
+        this.catalogCache = catalogCache;
     }
 
     @Override
     public List<Bottom> getAllBottoms() throws DatabaseException
     {
-        return bottomMapper.getAllBottoms();
+        return catalogCache.getAllBottoms();
     }
 
     @Override
     public List<Topping> getAllToppings() throws DatabaseException
     {
-        return toppingMapper.getAllToppings();
+        return catalogCache.getAllToppings();
     }
 
     @Override
@@ -44,39 +47,45 @@ public class CupcakeServiceImpl implements CupcakeService
     }
 
     @Override
-    public void createNewBottomFlavour(String bottomFlavour, double bottomPrice) throws DatabaseException
+    public void createNewBottomFlavour(String bottomFlavour, long bottomPrice) throws DatabaseException
     {
         bottomMapper.createBottom(bottomFlavour, bottomPrice);
+        catalogCache.refresh();
     }
 
     @Override
-    public void createNewToppingFlavour(String toppingFlavour, double toppingPrice) throws DatabaseException
+    public void createNewToppingFlavour(String toppingFlavour, long toppingPrice) throws DatabaseException
     {
         toppingMapper.createTopping(toppingFlavour, toppingPrice);
+        catalogCache.refresh();
     }
 
     @Override
     public void deleteBottomFlavour(Bottom bottom) throws DatabaseException
     {
         bottomMapper.deleteBottom(bottom.getBottomId());
+        catalogCache.refresh();
     }
 
     @Override
     public void deleteToppingFlavour(Topping topping) throws DatabaseException
     {
         toppingMapper.deleteTopping(topping.getToppingId());
+        catalogCache.refresh();
     }
 
     @Override
     public void updateTopping(Topping topping) throws DatabaseException
     {
         toppingMapper.updateTopping(topping);
+        catalogCache.refresh();
     }
 
     @Override
     public void updateBottom(Bottom bottom) throws DatabaseException
     {
         bottomMapper.updateBottom(bottom);
+        catalogCache.refresh();
     }
 }
 
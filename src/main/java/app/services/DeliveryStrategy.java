@@ -2,5 +2,5 @@ package app.services;
 
 public interface DeliveryStrategy
 {
-    public double getDeliveryPrice();
+    public long getDeliveryPrice();
 }
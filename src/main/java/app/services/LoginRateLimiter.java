@@ -0,0 +1,137 @@
+package app.services;
+
+import app.metrics.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/***
+ * Fixed-window limit on login attempts per email. Checked before the user lookup and the
+ * BCrypt verification, so hammering one account costs neither a query nor a hash.
+ * A successful login clears the window for that email.
+ *
+ * The windows are kept in the order they started, so expired ones are dropped from the front
+ * without scanning the rest. The number of tracked emails is capped: when the cap is reached the
+ * oldest window is dropped to make room. Attempts for many made-up emails can then only push out
+ * other windows early, never refuse a login for an email that is not tracked.
+ */
+public class LoginRateLimiter
+{
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_WINDOW_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final int DEFAULT_MAX_TRACKED_EMAILS = 100_000;
+
+    private final int maxAttempts;
+    private final long windowNanos;
+    private final int maxTrackedEmails;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Window> windows = new LinkedHashMap<>();
+    private final LongAdder blocked;
+
+    public LoginRateLimiter()
+    {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_WINDOW_MS, System::nanoTime);
+    }
+
+    LoginRateLimiter(int maxAttempts, long windowMs, LongSupplier clock)
+    {
+        this(maxAttempts, windowMs, DEFAULT_MAX_TRACKED_EMAILS, clock);
+    }
+
+    LoginRateLimiter(int maxAttempts, long windowMs, int maxTrackedEmails, LongSupplier clock)
+    {
+        this.maxAttempts = maxAttempts;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxTrackedEmails = maxTrackedEmails;
+        this.clock = clock;
+        this.blocked = MetricsRegistry.getInstance().counter("cupcake_login_rate_limited_total", "Login attempts rejected by the per-email rate limit");
+    }
+
+    /***
+     * Counts an attempt for the email.
+     * @return false if the email has used up its attempts in the current window
+     */
+    public boolean tryAcquire(String email)
+    {
+        long now = clock.getAsLong();
+        String key = normalize(email);
+        int attempts;
+
+        synchronized (windows)
+        {
+            removeExpiredWindows(now);
+
+            Window current = windows.get(key);
+            if (current == null)
+            {
+                if (windows.size() >= maxTrackedEmails)
+                {
+                    Iterator<Window> oldest = windows.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                }
+                windows.put(key, new Window(now, 1));
+                attempts = 1;
+            }
+            else
+            {
+                attempts = current.attempts + 1;
+                windows.put(key, new Window(current.start, attempts));
+            }
+        }
+
+        if (attempts > maxAttempts)
+        {
+            blocked.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void reset(String email)
+    {
+        synchronized (windows)
+        {
+            windows.remove(normalize(email));
+        }
+    }
+
+    int getTrackedEmails()
+    {
+        synchronized (windows)
+        {
+            return windows.size();
+        }
+    }
+
+    /***
+     * The oldest window is first, so this stops at the first one that has not expired. An expired
+     * window is removed rather than restarted in place, so a new window for the same email goes
+     * to the back and the order holds.
+     */
+    private void removeExpiredWindows(long now)
+    {
+        Iterator<Window> iterator = windows.values().iterator();
+        while (iterator.hasNext() && iterator.next().isExpired(now, windowNanos))
+        {
+            iterator.remove();
+        }
+    }
+
+    private String normalize(String email)
+    {
+        return email == null ? "" : email.trim().toLowerCase();
+    }
+
+    private record Window(long start, int attempts)
+    {
+        private boolean isExpired(long now, long windowNanos)
+        {
+            return now - start >= windowNanos;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package app.services;
 
+import app.dto.OrderPageDTO;
 import app.dto.UserDTO;
 import app.entities.Order;
 import app.entities.OrderLine;
@@ -12,7 +13,7 @@ import java.util.List;
 
 public interface OrderService
 {
-    public Order createOrder(UserDTO userDTO, List<OrderLine> orderlines, LocalDateTime pickUpDate, boolean payNow, double deliveryPrice) throws DatabaseException;
+    public Order createOrder(UserDTO userDTO, List<OrderLine> orderlines, LocalDateTime pickUpDate, boolean payNow, long deliveryPrice) throws DatabaseException;
 
     public List<Order> getAllUserOrders(UserDTO userDTO) throws DatabaseException;
 
@@ -26,6 +27,10 @@ public interface OrderService
 
     public List<Order> getAllOrders(int adminId) throws DatabaseException;
 
+    public OrderPageDTO getOrderPage(int adminId, LocalDateTime beforeDate, int beforeOrderId) throws DatabaseException;
+
+    public OrderPageDTO getUserOrderPage(UserDTO userDTO, LocalDateTime beforeDate, int beforeOrderId) throws DatabaseException;
+
     public Order getOrderById(int orderId, int userId) throws DatabaseException;
 
     public List<OrderLine> getAllOrderLinesByOrderId(int orderId) throws DatabaseException;
@@ -1,12 +1,15 @@
 package app.services;
 
+import app.dto.OrderPageDTO;
 import app.dto.UserDTO;
+import app.entities.Money;
 import app.entities.Order;
 import app.entities.OrderLine;
 import app.entities.User;
 import app.exceptions.DatabaseException;
 import app.persistence.OrderLineMapper;
 import app.persistence.OrderMapper;
+import app.persistence.RevenueAggregateStore;
 import app.persistence.UserMapper;
 
 import java.time.LocalDateTime;
@@ -17,48 +20,31 @@ import java.util.stream.Collectors;
 
 public class OrderServiceImpl implements OrderService
 {
+    private static final int SEARCH_RESULT_LIMIT = 100;
+    private static final int ORDER_PAGE_SIZE = 50;
+
     private OrderMapper orderMapper;
     private OrderLineMapper orderLineMapper;
     private UserMapper userMapper;
+    private RevenueAggregateStore revenueAggregateStore;
 
-    public OrderServiceImpl(OrderMapper orderMapper, OrderLineMapper orderLineMapper, UserMapper userMapper)
+    public OrderServiceImpl(OrderMapper orderMapper, OrderLineMapper orderLineMapper, UserMapper userMapper, RevenueAggregateStore revenueAggregateStore)
     {
         this.orderMapper = orderMapper;
         this.orderLineMapper = orderLineMapper;
         this.userMapper = userMapper;
+        this.revenueAggregateStore = revenueAggregateStore;
     }
 
     @Override
-    public Order createOrder(UserDTO userDTO, List<OrderLine> orderLines, LocalDateTime pickUpDate, boolean payNow, double deliveryPrice) throws DatabaseException
+    public Order createOrder(UserDTO userDTO, List<OrderLine> orderLines, LocalDateTime pickUpDate, boolean payNow, long deliveryPrice) throws DatabaseException
     {
-        double orderPrice = calculateTotalPrice(orderLines);
-        double totalPrice = orderPrice + deliveryPrice;
-        int userId = userDTO.getUserId();
+        long orderPrice = calculateTotalPrice(orderLines);
+        long totalPrice = orderPrice + deliveryPrice;
 
-        if (userId == 0)
+        if (userDTO.getUserId() == 0 && payNow)
         {
-            if (payNow)
-            {
-                throw new DatabaseException("Gæster kan kun betale ved afhentning");
-            }
-
-        }
-        else
-        {
-            User user = userMapper.getUserById(userId);
-
-            if (payNow)
-            {
-                if (user.getBalance() < totalPrice)
-                {
-                    throw new DatabaseException("Utilstrækkelig saldo. Dit beløb: " + user.getBalance() +
-                            " kr. Ordretotal: " + totalPrice + " kr.");
-                }
-                double newUserBalance = user.getBalance() - totalPrice;
-                userMapper.updateUserBalance(userId, newUserBalance);
-            }
-
-            userDTO = buildUserDTO(user);
+            throw new DatabaseException("Gæster kan kun betale ved afhentning");
         }
 
         Order order = new Order(
@@ -71,7 +57,15 @@ public class OrderServiceImpl implements OrderService
                 totalPrice
         );
 
-        return orderMapper.createOrder(order);
+        return revenueAggregateStore.change(() ->
+        {
+            Order createdOrder = orderMapper.createOrder(order, payNow);
+            if (createdOrder.isPaid())
+            {
+                revenueAggregateStore.addPaidOrder(createdOrder.getOrderDate(), createdOrder.getTotalPrice());
+            }
+            return createdOrder;
+        });
     }
 
     @Override
@@ -93,18 +87,44 @@ public class OrderServiceImpl implements OrderService
     {
         validateUserIsAdmin(adminId);
 
-        if (refundUser)
+        return revenueAggregateStore.change(() ->
         {
-            refundUserTotalOrderPrice(orderId);
-        }
-        return orderMapper.deleteOrder(orderId);
+            Order deletedOrder = orderMapper.deleteOrderReturningOrder(orderId, refundUser);
+            if (deletedOrder == null)
+            {
+                return false;
+            }
+
+            if (deletedOrder.isPaid())
+            {
+                revenueAggregateStore.removePaidOrder(deletedOrder.getOrderDate(), deletedOrder.getTotalPrice());
+            }
+            return true;
+        });
     }
 
     @Override
     public boolean updateOrderPaymentStatus(int orderId, boolean paid, int adminId) throws DatabaseException
     {
         validateUserIsAdmin(adminId);
-        return orderMapper.updateOrderStatus(orderId, paid);
+        return revenueAggregateStore.change(() ->
+        {
+            Order previousOrder = orderMapper.updateOrderStatusReturningPrevious(orderId, paid);
+            if (previousOrder == null)
+            {
+                return false;
+            }
+
+            if (!previousOrder.isPaid() && paid)
+            {
+                revenueAggregateStore.addPaidOrder(previousOrder.getOrderDate(), previousOrder.getTotalPrice());
+            }
+            else if (previousOrder.isPaid() && !paid)
+            {
+                revenueAggregateStore.removePaidOrder(previousOrder.getOrderDate(), previousOrder.getTotalPrice());
+            }
+            return true;
+        });
     }
 
     @Override
@@ -136,6 +156,19 @@ public class OrderServiceImpl implements OrderService
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public OrderPageDTO getOrderPage(int adminId, LocalDateTime beforeDate, int beforeOrderId) throws DatabaseException
+    {
+        validateUserIsAdmin(adminId);
+        return buildOrderPage(orderMapper.getOrdersPage(beforeDate, beforeOrderId, ORDER_PAGE_SIZE + 1));
+    }
+
+    @Override
+    public OrderPageDTO getUserOrderPage(UserDTO userDTO, LocalDateTime beforeDate, int beforeOrderId) throws DatabaseException
+    {
+        return buildOrderPage(orderMapper.getOrdersPageByUserId(userDTO.getUserId(), beforeDate, beforeOrderId, ORDER_PAGE_SIZE + 1));
+    }
+
     @Override
     public Order getOrderById(int orderId, int userId) throws DatabaseException
     {
@@ -151,26 +184,19 @@ public class OrderServiceImpl implements OrderService
     @Override
     public List<Order> searchOrdersByOrderId(int orderId) throws DatabaseException
     {
-        return orderMapper.getAllOrders().stream()
-                .filter(order -> order.getOrderId() == orderId)
-                .collect(Collectors.toList());
+        return orderMapper.searchOrdersByOrderId(orderId);
     }
 
     @Override
     public List<Order> searchOrdersByName(String name) throws DatabaseException
     {
-        return orderMapper.getAllOrders().stream()
-                .filter(order -> order.getUserDTO().getFirstName().toLowerCase().contains(name.toLowerCase())
-                        || order.getUserDTO().getLastName().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toList());
+        return orderMapper.searchOrdersByName(name, SEARCH_RESULT_LIMIT);
     }
 
     @Override
     public List<Order> searchOrdersByEmail(String email) throws DatabaseException
     {
-        return orderMapper.getAllOrders().stream()
-                .filter(order -> order.getUserDTO().getEmail().toLowerCase().contains(email))
-                .collect(Collectors.toList());
+        return orderMapper.searchOrdersByEmail(email, SEARCH_RESULT_LIMIT);
     }
 
     @Override
@@ -190,61 +216,59 @@ public class OrderServiceImpl implements OrderService
                 .collect(Collectors.toList());
     }
 
-    private void refundUserTotalOrderPrice(int orderId) throws DatabaseException
+    private OrderPageDTO buildOrderPage(List<Order> orders)
     {
-        List<Order> allOrders = orderMapper.getAllOrders();
-        Order orderToCancel = allOrders.stream()
-                .filter(order -> order.getOrderId() == orderId)
-                .findFirst()
-                .orElseThrow(() -> new DatabaseException("Ordre ikke fundet"));
+        boolean hasNextPage = orders.size() > ORDER_PAGE_SIZE;
+        List<Order> pageOrders = hasNextPage ? orders.subList(0, ORDER_PAGE_SIZE) : orders;
 
-        if (orderToCancel.isPaid())
+        List<Order> unpaidOrders = new ArrayList<>();
+        List<Order> paidOrders = new ArrayList<>();
+        for (Order order : pageOrders)
         {
-            int userId = orderToCancel.getUserDTO().getUserId();
-            User user = userMapper.getUserById(userId);
-            double newBalance = user.getBalance() + orderToCancel.getTotalPrice();
-            userMapper.updateUserBalance(userId, newBalance);
+            if (order.isPaid())
+            {
+                paidOrders.add(order);
+            }
+            else
+            {
+                unpaidOrders.add(order);
+            }
+        }
+
+        if (!hasNextPage)
+        {
+            return new OrderPageDTO(unpaidOrders, paidOrders, null, 0);
         }
+
+        Order lastOrder = pageOrders.get(pageOrders.size() - 1);
+        return new OrderPageDTO(unpaidOrders, paidOrders, lastOrder.getOrderDate(), lastOrder.getOrderId());
     }
 
     private void validateUserIsAdmin(int adminId) throws DatabaseException
     {
-        User admin = userMapper.getUserById(adminId);
-        if (!admin.isAdmin())
+        if (!userMapper.isAdmin(adminId))
         {
             throw new DatabaseException("Denne handling kan kun tilgås af en adminstrator. Log venligst ind med en adminstrator bruger");
         }
 
     }
 
-    private void validateUserBalance(boolean payNow, User user, double totalPrice) throws DatabaseException
+    private void validateUserBalance(boolean payNow, User user, long totalPrice) throws DatabaseException
     {
         if (payNow && user.getBalance() < totalPrice)
         {
-            throw new DatabaseException("Utilstrækkelig saldo. Dit beløb: " + user.getBalance() +
-                    " kr. Ordretotal: " + totalPrice + " kr.");
+            throw new DatabaseException("Utilstrækkelig saldo. Dit beløb: " + Money.format(user.getBalance()) +
+                    " kr. Ordretotal: " + Money.format(totalPrice) + " kr.");
         }
     }
 
-    private double calculateTotalPrice(List<OrderLine> orderLines)
-    {
-        return orderLines.stream()
-                .mapToDouble(OrderLine::getOrderLinePrice)
-                .sum();
-    }
-
-    private UserDTO buildUserDTO(User user)
+    private long calculateTotalPrice(List<OrderLine> orderLines)
     {
-        return new UserDTO(
-                user.getUserId(),
-                user.getFirstName(),
-                user.getLastName(),
-                user.getEmail(),
-                user.getPhoneNumber(),
-                user.getStreet(),
-                user.getZipCode(),
-                user.getCity(),
-                user.getBalance()
-        );
+        long totalPrice = 0;
+        for (OrderLine orderLine : orderLines)
+        {
+            totalPrice += orderLine.getOrderLinePrice();
+        }
+        return totalPrice;
     }
 }
@@ -0,0 +1,131 @@
+package app.services;
+
+import app.exceptions.DatabaseException;
+import app.metrics.Histogram;
+import app.metrics.MetricsRegistry;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Runs BCrypt hashing and verification on a dedicated pool with one thread per core and a
+ * bounded queue, so a burst of logins cannot occupy every request thread. When the queue is
+ * full the call is rejected at once with a DatabaseException instead of waiting.
+ */
+public class PasswordHasher
+{
+    private static final String BUSY_MESSAGE = "Serveren er travl lige nu. Prøv igen om lidt";
+    private static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Histogram hashTime;
+    private final Histogram verifyTime;
+    private final LongAdder rejected;
+
+    public PasswordHasher()
+    {
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 8, DEFAULT_TIMEOUT_MS);
+    }
+
+    /***
+     * @param threads number of hashing threads, normally the number of cores
+     * @param queueCapacity how many hash jobs may wait before new ones are rejected
+     * @param timeoutMs how long a caller waits for its job, including time in the queue
+     */
+    public PasswordHasher(int threads, int queueCapacity, long timeoutMs)
+    {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable ->
+                {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("cupcake_password_hash_queue_depth", "Password hash jobs waiting for a worker", () -> executor.getQueue().size());
+        registry.gauge("cupcake_password_hash_active", "Password hash jobs currently running", () -> executor.getActiveCount());
+        this.hashTime = registry.histogram("cupcake_password_hash_seconds", "Time spent in BCrypt on the hashing threads, excluding time in the queue", "operation", "hash");
+        this.verifyTime = registry.histogram("cupcake_password_hash_seconds", "Time spent in BCrypt on the hashing threads, excluding time in the queue", "operation", "verify");
+        this.rejected = registry.counter("cupcake_password_hash_rejected_total", "Password hash jobs rejected because the queue was full");
+    }
+
+    public String hash(String password) throws DatabaseException
+    {
+        return run(() ->
+        {
+            long start = System.nanoTime();
+            String hashed = BCrypt.hashpw(password, BCrypt.gensalt());
+            hashTime.observeNanos(System.nanoTime() - start);
+            return hashed;
+        });
+    }
+
+    public boolean verify(String password, String hashedPassword) throws DatabaseException
+    {
+        return run(() ->
+        {
+            long start = System.nanoTime();
+            boolean matches = BCrypt.checkpw(password, hashedPassword);
+            verifyTime.observeNanos(System.nanoTime() - start);
+            return matches;
+        });
+    }
+
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> job) throws DatabaseException
+    {
+        Future<T> future;
+        try
+        {
+            future = executor.submit(job);
+        }
+        catch (RejectedExecutionException e)
+        {
+            rejected.increment();
+            throw new DatabaseException(BUSY_MESSAGE);
+        }
+
+        try
+        {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            future.cancel(true);
+            throw new DatabaseException(BUSY_MESSAGE);
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DatabaseException(BUSY_MESSAGE);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            throw new DatabaseException("Fejl ved kontrol af password: " + e.getCause().getMessage());
+        }
+    }
+}
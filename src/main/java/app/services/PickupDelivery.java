@@ -3,8 +3,8 @@ package app.services;
 public class PickupDelivery implements DeliveryStrategy
 {
     @Override
-    public double getDeliveryPrice()
+    public long getDeliveryPrice()
     {
-        return 0.0;
+        return 0;
     }
 }
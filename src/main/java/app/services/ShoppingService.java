@@ -1,5 +1,6 @@
 package app.services;
 
+import app.dto.CatalogDTO;
 import app.entities.Bottom;
 import app.entities.ShoppingCart;
 import app.entities.Topping;
@@ -13,6 +14,8 @@ public interface ShoppingService
 
     List<Topping> getAllToppings() throws DatabaseException;
 
+    CatalogDTO getCatalog() throws DatabaseException;
+
     Bottom getBottomById(int id) throws DatabaseException;
 
     Topping getToppingById(int id) throws DatabaseException;
@@ -25,7 +28,7 @@ public interface ShoppingService
 
     void addOneToCupcakeQuantity(ShoppingCart cart, int index);
 
-    double getTotalOrderPrice(ShoppingCart cart);
+    long getTotalOrderPrice(ShoppingCart cart);
 
     int getTotalOrderQuantity(ShoppingCart cart);
 
@@ -1,54 +1,58 @@
 package app.services;
 
+import app.dto.CatalogDTO;
 import app.entities.Bottom;
 import app.entities.Cupcake;
 import app.entities.ShoppingCart;
 import app.entities.Topping;
 import app.exceptions.DatabaseException;
-import app.persistence.BottomMapper;
-import app.persistence.ToppingMapper;
+import app.persistence.CatalogCache;
 
 import java.util.List;
 
 public class ShoppingServiceImpl implements ShoppingService
 {
-    private ToppingMapper toppingMapper;
-    private BottomMapper bottomMapper;
+    private CatalogCache catalogCache;
 
-    public ShoppingServiceImpl(BottomMapper bottomMapper, ToppingMapper toppingMapper)
+    public ShoppingServiceImpl(CatalogCache catalogCache)
     {
-        this.bottomMapper = bottomMapper;
-        this.toppingMapper = toppingMapper;
+        this.catalogCache = catalogCache;
     }
 
     @Override
     public List<Bottom> getAllBottoms() throws DatabaseException
     {
-        return bottomMapper.getAllBottoms();
+        return catalogCache.getAllBottoms();
     }
 
     @Override
     public List<Topping> getAllToppings() throws DatabaseException
     {
-        return toppingMapper.getAllToppings();
+        return catalogCache.getAllToppings();
+    }
+
+    @Override
+    public CatalogDTO getCatalog() throws DatabaseException
+    {
+        return catalogCache.getCatalog();
     }
 
     @Override
     public Bottom getBottomById(int id) throws DatabaseException
     {
-        return bottomMapper.getBottomById(id);
+        return catalogCache.getBottomById(id);
     }
 
     @Override
     public Topping getToppingById(int id) throws DatabaseException
     {
-        return toppingMapper.getToppingById(id);
+        return catalogCache.getToppingById(id);
     }
 
     @Override
     public void addOrderLineToCart(ShoppingCart cart, Bottom bottom, Topping topping, int qty)
     {
-        double price = bottom.getPrice() + topping.getPrice();
+        long price = bottom.getPrice() + topping.getPrice();
         Cupcake cupcake = new Cupcake(bottom, topping, price);
         cart.addOrderLineToCart(cupcake, qty);
     }
@@ -72,7 +76,7 @@ public class ShoppingServiceImpl implements ShoppingService
     }
 
     @Override
-    public double getTotalOrderPrice(ShoppingCart cart)
+    public long getTotalOrderPrice(ShoppingCart cart)
     {
         return cart.getTotalOrderPrice();
     }
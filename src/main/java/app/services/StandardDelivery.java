@@ -3,8 +3,8 @@ package app.services;
 public class StandardDelivery implements DeliveryStrategy
 {
     @Override
-    public double getDeliveryPrice()
+    public long getDeliveryPrice()
     {
-        return 29.00;
+        return 2900;
     }
 }
@@ -6,9 +6,9 @@ import java.time.YearMonth;
 
 public interface StatisticService
 {
-    public double getTotalRevenue(int adminId) throws DatabaseException;
+    public long getTotalRevenue(int adminId) throws DatabaseException;
 
-    public double getMonthlyRevenue(int adminId, YearMonth month) throws DatabaseException;
+    public long getMonthlyRevenue(int adminId, YearMonth month) throws DatabaseException;
 
-    public double getAverageOrderValue(int adminId) throws DatabaseException;
+    public long getAverageOrderValue(int adminId) throws DatabaseException;
 }
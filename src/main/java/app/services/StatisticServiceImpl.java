@@ -1,91 +1,61 @@
 package app.services;
 
-import app.entities.Order;
-import app.entities.User;
 import app.exceptions.DatabaseException;
-import app.persistence.OrderMapper;
+import app.persistence.RevenueAggregateStore;
+import app.persistence.StatisticMapper;
 import app.persistence.UserMapper;
 
 import java.time.YearMonth;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class StatisticServiceImpl implements StatisticService
 {
     private UserMapper userMapper;
-    private OrderMapper orderMapper;
+    private StatisticMapper statisticMapper;
+    private RevenueAggregateStore revenueAggregateStore;
 
-    public StatisticServiceImpl(UserMapper userMapper, OrderMapper orderMapper)
+    public StatisticServiceImpl(UserMapper userMapper, StatisticMapper statisticMapper, RevenueAggregateStore revenueAggregateStore)
     {
         this.userMapper = userMapper;
-        this.orderMapper = orderMapper;
+        this.statisticMapper = statisticMapper;
+        this.revenueAggregateStore = revenueAggregateStore;
     }
 
     @Override
-    public double getTotalRevenue(int adminId) throws DatabaseException
+    public long getTotalRevenue(int adminId) throws DatabaseException
     {
         validateUserIsAdmin(adminId);
-        List<Order> orders = orderMapper.getAllOrders();
-
-        if (orders == null)
+        if (revenueAggregateStore.isLoaded())
         {
-            return 0.0;
+            return revenueAggregateStore.getTotalRevenue();
         }
-        return orders.stream()
-                .filter(Order::isPaid)
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
+        return statisticMapper.getRevenueSummary().getRevenue();
     }
 
     @Override
-    public double getMonthlyRevenue(int adminId, YearMonth month) throws DatabaseException
+    public long getMonthlyRevenue(int adminId, YearMonth month) throws DatabaseException
     {
         validateUserIsAdmin(adminId);
-        List<Order> orders = orderMapper.getAllOrders();
-
-        if (orders == null)
+        if (revenueAggregateStore.isLoaded())
         {
-            return 0.0;
+            return revenueAggregateStore.getMonthlyRevenue(month);
         }
-
-        return orders.stream()
-                .filter(Order::isPaid)
-                .filter(order -> YearMonth.from(order.getOrderDate()).equals(month))
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
+        return statisticMapper.getMonthlyRevenue(month).getRevenue();
     }
 
     @Override
-    public double getAverageOrderValue(int adminId) throws DatabaseException
+    public long getAverageOrderValue(int adminId) throws DatabaseException
     {
         validateUserIsAdmin(adminId);
-        List<Order> orders = orderMapper.getAllOrders();
-
-        if (orders == null || orders.isEmpty())
-        {
-            return 0.0;
-        }
-
-        List<Order> paidOrders = orders.stream()
-                .filter(Order::isPaid)
-                .collect(Collectors.toList());
-
-        if (paidOrders.isEmpty())
+        if (revenueAggregateStore.isLoaded())
         {
-            return 0.0;
+            return revenueAggregateStore.getAverageOrderValue();
         }
-
-        double totalRevenue = paidOrders.stream()
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
-
-        return totalRevenue / paidOrders.size();
+        return statisticMapper.getRevenueSummary().getAverageOrderValue();
     }
 
     private void validateUserIsAdmin(int adminId) throws DatabaseException
     {
-        User admin = userMapper.getUserById(adminId);
-        if (!admin.isAdmin())
+        if (!userMapper.isAdmin(adminId))
         {
             throw new DatabaseException("Denne handling kan kun tilgås af en adminstrator. Log venligst ind med en adminstrator bruger");
         }
@@ -15,7 +15,7 @@ public interface UserService
 
     public User registerGuestUser(String firstName, String lastName, String email, int phoneNumber, String city, String street, int zipCode) throws DatabaseException;
 
-    public void addBalance(int userId, double amount) throws DatabaseException;
+    public void addBalance(int userId, long amount) throws DatabaseException;
 
     public UserDTO getUserById(int userId) throws DatabaseException;
 
@@ -5,7 +5,6 @@ import app.dto.UserDTO;
 import app.entities.User;
 import app.exceptions.DatabaseException;
 import app.persistence.UserMapper;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,18 +12,37 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService
 {
     private UserMapper userMapper;
+    private PasswordHasher passwordHasher;
+    private LoginRateLimiter loginRateLimiter;
 
-    public UserServiceImpl(UserMapper userMapper)
+    public UserServiceImpl(UserMapper userMapper, PasswordHasher passwordHasher, LoginRateLimiter loginRateLimiter)
     {
         this.userMapper = userMapper;
+        this.passwordHasher = passwordHasher;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     @Override
     public User authenticate(String email, String password) throws DatabaseException
     {
-        User user = userMapper.getUserByEmail(email);
-        if (user != null && BCrypt.checkpw(password, user.getPassword()))
+        if (!loginRateLimiter.tryAcquire(email))
         {
+            throw new DatabaseException("For mange loginforsøg. Prøv igen om 15 minutter");
+        }
+
+        User user;
+        try
+        {
+            user = userMapper.getUserByEmail(email);
+        }
+        catch (DatabaseException e)
+        {
+            throw new DatabaseException("Forkert email eller password");
+        }
+
+        if (user != null && passwordHasher.verify(password, user.getPassword()))
+        {
+            loginRateLimiter.reset(email);
             return user;
         }
         else
@@ -63,7 +81,7 @@ public class UserServiceImpl implements UserService
         validateStreet(createUserRequestDTO.getStreet());
         validateCity(createUserRequestDTO.getCity());
 
-        String hashedPassword = BCrypt.hashpw(createUserRequestDTO.getPassword1(), BCrypt.gensalt());
+        String hashedPassword = passwordHasher.hash(createUserRequestDTO.getPassword1());
 
         return userMapper.createUser(createUserRequestDTO.getFirstName(), createUserRequestDTO.getLastName(), createUserRequestDTO.getEmail(), hashedPassword, phoneNumber, createUserRequestDTO.getStreet(), zipCode, createUserRequestDTO.getCity());
     }
@@ -87,7 +105,7 @@ public class UserServiceImpl implements UserService
     }
 
     @Override
-    public void addBalance(int userId, double amount) throws DatabaseException
+    public void addBalance(int userId, long amount) throws DatabaseException
     {
         if (amount <= 0)
         {
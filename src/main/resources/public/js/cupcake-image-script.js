@@ -1,39 +1,29 @@
 document.addEventListener("DOMContentLoaded", () => {
     const bottomSelect = document.getElementById("bottomSelect");
     const toppingSelect = document.getElementById("toppingSelect");
-    const bottomImg = document.querySelector(".bottom-img");
-    const toppingImg = document.querySelector(".topping-img");
+    const cupcakeImg = document.querySelector(".cupcake-img");
 
-    const PLACEHOLDER = {
-        bottom: "/images/cupcakes/bottoms/bottom_placeholder.png",
-        topping: "/images/cupcakes/toppings/topping_placeholder.png"
-    };
+    if (!cupcakeImg) {
+        return;
+    }
 
-    function updateImage(selectEl, imgEl, placeholder) {
+    function selectedSlug(selectEl) {
         const opt = selectEl.selectedOptions[0];
-        const url = opt ? opt.dataset.img : null;
-        imgEl.onerror = () => {
-            imgEl.onerror = null;
-            imgEl.src = placeholder;
-        };
-        imgEl.src = url || placeholder;
+        if (opt && opt.dataset.slug) {
+            return opt.dataset.slug;
+        }
+        const firstReal = Array.from(selectEl.options).find(o => !o.disabled && o.value);
+        return firstReal ? firstReal.dataset.slug : null;
     }
 
-    function preloadFirstReal(selectEl, imgEl, placeholder) {
-        const firstReal = Array.from(selectEl.options).find(o => !o.disabled && o.value);
-        if (firstReal) {
-            const url = firstReal.dataset.img;
-            imgEl.onerror = () => {
-                imgEl.onerror = null;
-                imgEl.src = placeholder;
-            };
-            imgEl.src = url || placeholder;
+    function updateImage() {
+        const bottom = selectedSlug(bottomSelect);
+        const topping = selectedSlug(toppingSelect);
+        if (bottom && topping) {
+            cupcakeImg.src = "/cupcake-images/" + bottom + "/" + topping;
         }
     }
 
-    preloadFirstReal(bottomSelect, bottomImg, PLACEHOLDER.bottom);
-    preloadFirstReal(toppingSelect, toppingImg, PLACEHOLDER.topping);
-
-    bottomSelect.addEventListener("change", () => updateImage(bottomSelect, bottomImg, PLACEHOLDER.bottom));
-    toppingSelect.addEventListener("change", () => updateImage(toppingSelect, toppingImg, PLACEHOLDER.topping));
+    bottomSelect.addEventListener("change", updateImage);
+    toppingSelect.addEventListener("change", updateImage);
 });
@@ -17,7 +17,7 @@ CREATE TABLE IF NOT EXISTS public.users
     phonenumber integer NOT NULL,
     street character varying NULL,
     zip_code integer NULL,
-    balance double precision NOT NULL DEFAULT 0,
+    balance bigint NOT NULL DEFAULT 0,
     admin boolean NOT NULL DEFAULT false,
     is_guest boolean NOT NULL DEFAULT false,
     created_at timestamp with time zone NOT NULL DEFAULT now(),
@@ -31,7 +31,7 @@ CREATE TABLE IF NOT EXISTS public.bottoms
 (
     bottom_id serial NOT NULL,
     bottom_flavour character varying NOT NULL,
-    bottom_price double precision NOT NULL,
+    bottom_price bigint NOT NULL,
     PRIMARY KEY (bottom_id),
     CONSTRAINT bottom_flavour_unique UNIQUE (bottom_flavour)
     );
@@ -40,7 +40,7 @@ CREATE TABLE IF NOT EXISTS public.toppings
 (
     topping_id serial NOT NULL,
     topping_flavour character varying NOT NULL,
-    topping_price double precision NOT NULL,
+    topping_price bigint NOT NULL,
     PRIMARY KEY (topping_id),
     CONSTRAINT topping_flavour_unique UNIQUE (topping_flavour)
     );
@@ -53,7 +53,7 @@ CREATE TABLE IF NOT EXISTS public.orders
     order_date timestamp with time zone NOT NULL DEFAULT now(),
     pickup_date timestamp with time zone NOT NULL,
                               paid boolean NOT NULL DEFAULT false,
-                              price_total double precision NOT NULL,
+                              price_total bigint NOT NULL,
                               PRIMARY KEY (order_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id)
                           ON DELETE CASCADE ON UPDATE CASCADE
@@ -66,7 +66,7 @@ CREATE TABLE IF NOT EXISTS public.orderlines
     topping_id integer NOT NULL,
     bottom_id integer NOT NULL,
     quantity integer NOT NULL,
-    orderline_price double precision NOT NULL,
+    orderline_price bigint NOT NULL,
     PRIMARY KEY (orderline_id),
     FOREIGN KEY (order_id) REFERENCES orders(order_id)
     ON DELETE CASCADE ON UPDATE CASCADE,
@@ -76,6 +76,50 @@ CREATE TABLE IF NOT EXISTS public.orderlines
     ON DELETE NO ACTION ON UPDATE CASCADE
     );
 
+-- Amounts are stored in øre. Converts databases created while amounts were double precision kroner.
+DO $$
+DECLARE
+    money_column record;
+BEGIN
+    FOR money_column IN
+        SELECT table_name, column_name FROM information_schema.columns
+        WHERE table_schema = 'public' AND data_type = 'double precision'
+          AND (table_name, column_name) IN (('users', 'balance'), ('bottoms', 'bottom_price'), ('toppings', 'topping_price'),
+                                            ('orders', 'price_total'), ('orderlines', 'orderline_price'))
+    LOOP
+        EXECUTE format('ALTER TABLE public.%I ALTER COLUMN %I TYPE bigint USING round(%I * 100)',
+                       money_column.table_name, money_column.column_name, money_column.column_name);
+    END LOOP;
+END $$;
+
+
+CREATE TABLE IF NOT EXISTS public.sessions
+(
+    session_id character varying NOT NULL,
+    context_path character varying NOT NULL,
+    vhost character varying NOT NULL,
+    last_node character varying,
+    created bigint NOT NULL,
+    accessed bigint NOT NULL,
+    last_accessed bigint NOT NULL,
+    cookie_set bigint NOT NULL,
+    expiry bigint NOT NULL,
+    max_inactive_ms bigint NOT NULL,
+    last_saved bigint NOT NULL,
+    attributes bytea NOT NULL,
+    PRIMARY KEY (session_id, context_path, vhost)
+    );
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS orders_order_date_order_id_idx ON public.orders (order_date DESC, order_id DESC);
+CREATE INDEX IF NOT EXISTS orders_user_id_order_date_idx ON public.orders (user_id, order_date DESC, order_id DESC);
+CREATE INDEX IF NOT EXISTS orderlines_order_id_idx ON public.orderlines (order_id);
+CREATE INDEX IF NOT EXISTS orders_paid_order_date_idx ON public.orders (order_date) INCLUDE (price_total) WHERE paid;
+CREATE INDEX IF NOT EXISTS users_firstname_trgm_idx ON public.users USING gin (firstname gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS users_lastname_trgm_idx ON public.users USING gin (lastname gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS users_email_trgm_idx ON public.users USING gin (email gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS sessions_expiry_idx ON public.sessions (expiry) WHERE expiry > 0;
 
 
 INSERT INTO public.zip_codes (zip_code, city) VALUES
@@ -95,45 +139,45 @@ INSERT INTO public.zip_codes (zip_code, city) VALUES
     ON CONFLICT DO NOTHING;
 
 INSERT INTO public.bottoms (bottom_flavour, bottom_price) VALUES
-                                                              ('Chokolade', 5.00),
-                                                              ('Vanilje', 5.00),
-                                                              ('Muskatnød', 5.00),
-                                                              ('Pistacie', 6.00),
-                                                              ('Mandel', 7.00)
+                                                              ('Chokolade', 500),
+                                                              ('Vanilje', 500),
+                                                              ('Muskatnød', 500),
+                                                              ('Pistacie', 600),
+                                                              ('Mandel', 700)
     ON CONFLICT DO NOTHING;
 
 INSERT INTO public.toppings (topping_flavour, topping_price) VALUES
-                                                                 ('Chokolade', 5.00),
-                                                                 ('Blåbær', 5.00),
-                                                                 ('Hindbær', 5.00),
-                                                                 ('Karamel', 6.00),
-                                                                 ('Jordbær', 6.00),
-                                                                 ('Rom/Rosin', 7.00),
-                                                                 ('Appelsin', 8.00),
-                                                                 ('Citron', 8.00),
-                                                                 ('Blåskimmelost', 9.00)
+                                                                 ('Chokolade', 500),
+                                                                 ('Blåbær', 500),
+                                                                 ('Hindbær', 500),
+                                                                 ('Karamel', 600),
+                                                                 ('Jordbær', 600),
+                                                                 ('Rom/Rosin', 700),
+                                                                 ('Appelsin', 800),
+                                                                 ('Citron', 800),
+                                                                 ('Blåskimmelost', 900)
     ON CONFLICT DO NOTHING;
 
 INSERT INTO public.users (firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest) VALUES
                                                                                                                              ('System', 'Administrator', 'admin@mail.dk', '$2a$12$jXQYyBGZ8Z96NC.2c6cm7e/QdtAL2/gBJohWp7CYPV0Zk/QT7Zq2q', 12345678, 'Olsker Hovedgade 12', 3770, 0, TRUE, FALSE),
-                                                                                                                             ('Poul', 'Hansen', 'poul.hansen@mail.dk', '$2a$12$oy8Cuq.QOFgx6KXOwyT5MO3IsT/NNZ21fZn4g/NAJZGLgltz7f0gC', '20481234', 'Snellemark 14', 3700, 250.75, FALSE, FALSE),
-                                                                                                                             ('Maja', 'Christiansen', 'maja.christiansen@mail.dk', '$2a$12$ZW19PU.VHt8mtlKK/I5nJ.lst/9Ji5AH/u4fhw1qge8IGBGzbW8c.', '30487766', 'Søndergade 8', 3740, 180.00, FALSE, FALSE),
+                                                                                                                             ('Poul', 'Hansen', 'poul.hansen@mail.dk', '$2a$12$oy8Cuq.QOFgx6KXOwyT5MO3IsT/NNZ21fZn4g/NAJZGLgltz7f0gC', '20481234', 'Snellemark 14', 3700, 25075, FALSE, FALSE),
+                                                                                                                             ('Maja', 'Christiansen', 'maja.christiansen@mail.dk', '$2a$12$ZW19PU.VHt8mtlKK/I5nJ.lst/9Ji5AH/u4fhw1qge8IGBGzbW8c.', '30487766', 'Søndergade 8', 3740, 18000, FALSE, FALSE),
                                                                                                                              ('Lars', 'Nielsen', 'lars.nielsen@guest.dk', NULL, 12345678, 'Storegade 10', 3700, 0, FALSE, TRUE)
     ON CONFLICT (email) DO NOTHING;
 
 
 INSERT INTO public.orders (user_id, order_date, pickup_date, paid, price_total) VALUES
-                                                                                    (2, now(), now() + interval '2 day', TRUE, 22.00),
-                                                                                    (4, now(), now() + interval '3 day', FALSE, 12.00),
-                                                                                    (3, now(), now() + interval '1 day', TRUE, 27.00);
+                                                                                    (2, now(), now() + interval '2 day', TRUE, 2200),
+                                                                                    (4, now(), now() + interval '3 day', FALSE, 1200),
+                                                                                    (3, now(), now() + interval '1 day', TRUE, 2700);
 
 INSERT INTO public.orderlines (order_id, topping_id, bottom_id, quantity, orderline_price) VALUES
-                                                                                               (1, 1, 1, 1, 10.00),
-                                                                                               (1, 2, 2, 1, 10.00),
-                                                                                               (2, 5, 4, 2, 24.00),
-                                                                                               (3, 6, 5, 1, 14.00),
-                                                                                               (3, 3, 1, 1, 10.00),
-                                                                                               (3, 9, 2, 1, 14.00);
+                                                                                               (1, 1, 1, 1, 1000),
+                                                                                               (1, 2, 2, 1, 1000),
+                                                                                               (2, 5, 4, 2, 2400),
+                                                                                               (3, 6, 5, 1, 1400),
+                                                                                               (3, 3, 1, 1, 1000),
+                                                                                               (3, 9, 2, 1, 1400);
 
 CREATE SCHEMA IF NOT EXISTS test;
 
@@ -0,0 +1,49 @@
+package app.config;
+
+import app.config.StaticAssets.Asset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAssetsTest
+{
+    private static StaticAssets staticAssets;
+
+    @BeforeAll
+    static void setUpClass()
+    {
+        staticAssets = StaticAssets.load();
+    }
+
+    @Test
+    void testKnownFilesGetFingerprintedUrls()
+    {
+        Asset stylesheet = staticAssets.find("/css/stylesheet.css");
+
+        assertNotNull(stylesheet);
+        assertEquals("/assets/" + stylesheet.hash() + "/css/stylesheet.css", staticAssets.fingerprint("/css/stylesheet.css"));
+        assertEquals("/basket", staticAssets.fingerprint("/basket"));
+        assertEquals("/css/stylesheet.css?v=1", staticAssets.fingerprint("/css/stylesheet.css?v=1"));
+    }
+
+    @Test
+    void testTextFilesHaveSmallerGzipVariant()
+    {
+        Asset stylesheet = staticAssets.find("/css/stylesheet.css");
+
+        assertNotNull(stylesheet.gzipped());
+        assertTrue(stylesheet.gzipped().length < stylesheet.content().length);
+        assertNotEquals(stylesheet.etag(), stylesheet.gzipEtag());
+    }
+
+    @Test
+    void testImagesAreStreamedUncompressed()
+    {
+        Asset storefront = staticAssets.find("/images/storefront.png");
+
+        assertNull(storefront.content());
+        assertNull(storefront.gzipped());
+        assertTrue(storefront.length() > 0);
+    }
+}
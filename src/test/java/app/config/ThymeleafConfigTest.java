@@ -0,0 +1,30 @@
+package app.config;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThymeleafConfigTest
+{
+    @Test
+    void testProductionParsesAllTemplatesAtStartup()
+    {
+        TemplateEngine templateEngine = ThymeleafConfig.templateEngine(true);
+
+        Set<?> cachedTemplates = templateEngine.getConfiguration().getCacheManager().getTemplateCache().keySet();
+        assertTrue(cachedTemplates.stream().anyMatch(key -> key.toString().contains("index")));
+        assertTrue(cachedTemplates.stream().anyMatch(key -> key.toString().contains("fragments")));
+        assertTrue(cachedTemplates.stream().anyMatch(key -> key.toString().contains("orders")));
+    }
+
+    @Test
+    void testDevelopmentDoesNotPreloadTemplates()
+    {
+        TemplateEngine templateEngine = ThymeleafConfig.templateEngine(false);
+
+        assertTrue(templateEngine.getConfiguration().getCacheManager().getTemplateCache().keySet().isEmpty());
+    }
+}
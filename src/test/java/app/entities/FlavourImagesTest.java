@@ -0,0 +1,40 @@
+package app.entities;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlavourImagesTest
+{
+    @Test
+    @DisplayName("Slugs transliterate Danish letters and drop everything else")
+    void slugOf()
+    {
+        assertEquals("blaaskimmelost", FlavourImages.slugOf("Blåskimmelost"));
+        assertEquals("muskatnoed", FlavourImages.slugOf("Muskatnød"));
+        assertEquals("romrosin", FlavourImages.slugOf("Rom/Rosin"));
+        assertEquals("aeble2", FlavourImages.slugOf("Æble 2!"));
+        assertEquals("", FlavourImages.slugOf(null));
+    }
+
+    @Test
+    @DisplayName("Flavours get their image, or the placeholder when there is none")
+    void imageFallsBackToPlaceholder()
+    {
+        assertEquals("/images/cupcakes/toppings/topping_blaabaer.png", new Topping(1, "Blåbær", 500).getImage());
+        assertEquals("/images/cupcakes/bottoms/bottom_placeholder.png", new Bottom(1, "Lakrids", 500).getImage());
+    }
+
+    @Test
+    @DisplayName("Renaming a flavour updates slug and image")
+    void renameUpdatesSlug()
+    {
+        Bottom bottom = new Bottom(1, "Lakrids", 500);
+
+        bottom.setName("Mandel");
+
+        assertEquals("mandel", bottom.getSlug());
+        assertEquals("/images/cupcakes/bottoms/bottom_mandel.png", bottom.getImage());
+    }
+}
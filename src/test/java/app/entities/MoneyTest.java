@@ -0,0 +1,49 @@
+package app.entities;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest
+{
+    @Test
+    @DisplayName("Formats øre as kroner with two decimals")
+    void format()
+    {
+        assertEquals("0,00", Money.format(0));
+        assertEquals("0,05", Money.format(5));
+        assertEquals("12,50", Money.format(1250));
+        assertEquals("-2,90", Money.format(-290));
+        assertEquals("25000,00", Money.format(2500000));
+        assertSame(Money.format(2900), Money.format(2900));
+    }
+
+    @Test
+    @DisplayName("Parses kroner with comma or point")
+    void parse()
+    {
+        assertEquals(550, Money.parse("5,5"));
+        assertEquals(550, Money.parse(" 5.50 "));
+        assertEquals(2900, Money.parse("29"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("5,555"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("fem"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(null));
+    }
+
+    @Test
+    @DisplayName("Summing many prices does not drift")
+    void sumDoesNotDrift()
+    {
+        ShoppingCart cart = new ShoppingCart();
+        Cupcake cupcake = new Cupcake(new Bottom(1, "Vanilje", 510), new Topping(1, "Citron", 10));
+
+        for (int i = 0; i < 10_000; i++)
+        {
+            cart.addOrderLineToCart(cupcake, 1);
+        }
+
+        assertEquals(5_200_000, cart.getTotalOrderPrice());
+        assertEquals("52000,00", cart.getFormattedTotalOrderPrice());
+    }
+}
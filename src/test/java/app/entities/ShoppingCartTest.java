@@ -5,6 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ShoppingCartTest
@@ -20,14 +23,14 @@ class ShoppingCartTest
     {
         shoppingCart = new ShoppingCart();
 
-        Bottom vanilla = new Bottom(0, "vanilla", 6);
-        Topping chocolate = new Topping(0, "chocolate", 6);
-        double price = vanilla.getPrice() + chocolate.getPrice();
+        Bottom vanilla = new Bottom(0, "vanilla", 600);
+        Topping chocolate = new Topping(0, "chocolate", 600);
+        long price = vanilla.getPrice() + chocolate.getPrice();
         cupcake = new Cupcake(vanilla, chocolate, price);
 
-        Bottom choco = new Bottom(1, "chocolate", 5);
-        Topping vanill = new Topping(1, "vanilla", 5);
-        double priceTwo = choco.getPrice() + vanill.getPrice();
+        Bottom choco = new Bottom(1, "chocolate", 500);
+        Topping vanill = new Topping(1, "vanilla", 500);
+        long priceTwo = choco.getPrice() + vanill.getPrice();
         cupcakeTwo = new Cupcake(choco, vanill, priceTwo);
 
         orderLineOne = new OrderLine(cupcake, 3);
@@ -138,7 +141,7 @@ class ShoppingCartTest
         shoppingCart.addOrderLineToCart(cupcakeTwo, 2);
 
         // Assert
-        assertEquals(44.00, shoppingCart.getTotalOrderPrice());
+        assertEquals(4400, shoppingCart.getTotalOrderPrice());
     }
 
     @DisplayName("Remove One quantity from cart")
@@ -176,4 +179,109 @@ class ShoppingCartTest
         // Assert
         assertEquals(3, shoppingCart.getShoppingCart().get(0).getQuantity());
     }
+
+    @Test
+    @DisplayName("Same bottom and topping merges into one line")
+    void addSameCupcakeFromNewInstance()
+    {
+        // Act
+        shoppingCart.addOrderLineToCart(cupcake, 2);
+        shoppingCart.addOrderLineToCart(new Cupcake(new Bottom(0, "vanilla", 600), new Topping(0, "chocolate", 600)), 1);
+
+        // Assert
+        assertEquals(1, shoppingCart.getShoppingCart().size());
+        assertEquals(3, shoppingCart.getShoppingCart().get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Running totals follow every change")
+    void totalsFollowMutations()
+    {
+        // Act
+        shoppingCart.addOrderLineToCart(cupcake, 2);
+        shoppingCart.addOrderLineToCart(cupcakeTwo, 3);
+        shoppingCart.addOneToCupcakeQuantity(shoppingCart.getShoppingCart().get(0));
+        shoppingCart.removeOneFromCupcakeQuantity(shoppingCart.getShoppingCart().get(1));
+        shoppingCart.removeOrderLineFromCart(shoppingCart.getShoppingCart().get(0));
+
+        // Assert
+        assertEquals(2, shoppingCart.getTotalOrderQuantitiy());
+        assertEquals(2000, shoppingCart.getTotalOrderPrice());
+
+        shoppingCart.clearShoppingCart();
+        assertEquals(0, shoppingCart.getTotalOrderQuantitiy());
+        assertEquals(0, shoppingCart.getTotalOrderPrice());
+    }
+
+    @Test
+    @DisplayName("Cart built from existing lines is indexed")
+    void cartFromExistingLines()
+    {
+        // Arrange
+        ShoppingCart restored = new ShoppingCart(new ArrayList<>(List.of(new OrderLine(cupcake, 2))));
+
+        // Act
+        restored.addOrderLineToCart(cupcake, 1);
+
+        // Assert
+        assertEquals(1, restored.getShoppingCart().size());
+        assertEquals(3, restored.getTotalOrderQuantitiy());
+        assertEquals(3600, restored.getTotalOrderPrice());
+    }
+
+    @Test
+    @DisplayName("Same flavour at a new price gets its own line")
+    void priceChangeBetweenAdds()
+    {
+        // Arrange
+        Cupcake repriced = new Cupcake(cupcake.getBottom(), cupcake.getTopping(), 1500);
+
+        // Act
+        shoppingCart.addOrderLineToCart(cupcake, 2);
+        shoppingCart.addOrderLineToCart(repriced, 1);
+        shoppingCart.addOrderLineToCart(cupcake, 1);
+
+        // Assert
+        long sumOfLines = shoppingCart.getShoppingCart().stream().mapToLong(OrderLine::getOrderLinePrice).sum();
+        assertEquals(2, shoppingCart.getShoppingCart().size());
+        assertEquals(3 * 1200 + 1500, shoppingCart.getTotalOrderPrice());
+        assertEquals(sumOfLines, shoppingCart.getTotalOrderPrice());
+    }
+
+    @Test
+    @DisplayName("Removing a line leaves the same flavour at another price")
+    void removeLineOfRepricedFlavour()
+    {
+        // Arrange
+        Cupcake repriced = new Cupcake(cupcake.getBottom(), cupcake.getTopping(), 1500);
+        shoppingCart.addOrderLineToCart(cupcake, 2);
+        shoppingCart.addOrderLineToCart(repriced, 1);
+        shoppingCart.addOrderLineToCart(cupcakeTwo, 4);
+
+        // Act
+        shoppingCart.removeOrderLineFromCart(shoppingCart.getShoppingCart().get(1));
+        shoppingCart.addOrderLineToCart(repriced, 3);
+
+        // Assert
+        assertEquals(3, shoppingCart.getShoppingCart().size());
+        assertEquals(2, shoppingCart.getShoppingCart().get(0).getQuantity());
+        assertEquals(3, shoppingCart.getShoppingCart().get(2).getQuantity());
+        assertEquals(2 * 1200 + 4 * 1000 + 3 * 1500, shoppingCart.getTotalOrderPrice());
+        assertEquals(9, shoppingCart.getTotalOrderQuantitiy());
+    }
+
+    @Test
+    @DisplayName("Removing a line that is not in the cart changes nothing")
+    void removeLineNotInCart()
+    {
+        // Arrange
+        shoppingCart.addOrderLineToCart(cupcake, 2);
+
+        // Act
+        shoppingCart.removeOrderLineFromCart(orderLineTwo);
+
+        // Assert
+        assertEquals(1, shoppingCart.getShoppingCart().size());
+        assertEquals(2 * 1200, shoppingCart.getTotalOrderPrice());
+    }
 }
@@ -0,0 +1,46 @@
+package app.images;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CupcakeCompositorTest
+{
+    private final CupcakeCompositor cupcakeCompositor = new CupcakeCompositor(new ImageResizer());
+
+    @Test
+    void testToppingIsDrawnAboveBottom() throws IOException
+    {
+        byte[] composite = cupcakeCompositor.composite(square(Color.BLUE), square(Color.RED));
+
+        BufferedImage cupcake = ImageIO.read(new ByteArrayInputStream(composite));
+        assertEquals(CupcakeCompositor.WIDTH, cupcake.getWidth());
+        assertEquals(672, cupcake.getHeight());
+        assertEquals(Color.RED.getRGB(), cupcake.getRGB(240, 10));
+        assertEquals(Color.RED.getRGB(), cupcake.getRGB(240, 400));
+        assertEquals(Color.BLUE.getRGB(), cupcake.getRGB(240, 600));
+        assertTrue(cupcake.getColorModel().hasAlpha());
+    }
+
+    private ByteArrayInputStream square(Color color) throws IOException
+    {
+        BufferedImage image = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                image.setRGB(x, y, color.getRGB());
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
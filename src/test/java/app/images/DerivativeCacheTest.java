@@ -0,0 +1,135 @@
+package app.images;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivativeCacheTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGeneratesOnceAndReadsFromDisk() throws Exception
+    {
+        DerivativeCache cache = new DerivativeCache(directory, 1000);
+        AtomicInteger generations = new AtomicInteger();
+
+        byte[] first = cache.get("a", () -> { generations.incrementAndGet(); return new byte[]{1, 2, 3}; });
+        byte[] second = cache.get("a", () -> { generations.incrementAndGet(); return new byte[]{9}; });
+
+        assertArrayEquals(first, second);
+        assertEquals(1, generations.get());
+        assertTrue(Files.exists(directory.resolve("a")));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedWhenFull() throws Exception
+    {
+        DerivativeCache cache = new DerivativeCache(directory, 250);
+
+        cache.get("a", () -> new byte[100]);
+        cache.get("b", () -> new byte[100]);
+        cache.get("a", () -> new byte[100]);
+        cache.get("c", () -> new byte[100]);
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertFalse(Files.exists(directory.resolve("b")));
+        assertEquals(200, cache.getTotalBytes());
+    }
+
+    @Test
+    void testKeepsFilesFromEarlierRun() throws Exception
+    {
+        new DerivativeCache(directory, 1000).get("a", () -> new byte[10]);
+
+        DerivativeCache restarted = new DerivativeCache(directory, 1000);
+
+        assertTrue(restarted.contains("a"));
+        assertEquals(10, restarted.getTotalBytes());
+    }
+
+    @Test
+    void testConcurrentMissesGenerateOnce() throws Exception
+    {
+        DerivativeCache cache = new DerivativeCache(directory, 1000);
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            results.add(executor.submit(() -> cache.get("a", () ->
+            {
+                generations.incrementAndGet();
+                awaitUninterruptibly(release);
+                return new byte[]{7};
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<byte[]> result : results)
+        {
+            assertArrayEquals(new byte[]{7}, result.get());
+        }
+        executor.shutdown();
+        assertEquals(1, generations.get());
+    }
+
+    @Test
+    void testWaitingCallerGetsErrorFromGenerator() throws Exception
+    {
+        DerivativeCache cache = new DerivativeCache(directory, 1000);
+        CountDownLatch generating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<byte[]> failing = executor.submit(() -> cache.get("a", () ->
+        {
+            generating.countDown();
+            awaitUninterruptibly(release);
+            throw new OutOfMemoryError("decoding a large image");
+        }));
+        generating.await();
+        Future<byte[]> waiting = executor.submit(() -> cache.get("a", () -> new byte[]{7}));
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        ExecutionException waited = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertInstanceOf(OutOfMemoryError.class, failed.getCause());
+        assertInstanceOf(OutOfMemoryError.class, waited.getCause());
+        assertArrayEquals(new byte[]{7}, cache.get("a", () -> new byte[]{7}));
+    }
+
+    private void awaitUninterruptibly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package app.images;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageResizerTest
+{
+    private final ImageResizer imageResizer = new ImageResizer();
+
+    @Test
+    void testOpaqueImagesBecomeSmallerJpegs() throws IOException
+    {
+        byte[] resized = imageResizer.resize(png(1536, 1024, BufferedImage.TYPE_INT_RGB), 480);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(resized));
+        assertEquals("image/jpeg", ImageResizer.contentTypeOf(resized));
+        assertEquals(480, image.getWidth());
+        assertEquals(320, image.getHeight());
+    }
+
+    @Test
+    void testTransparentImagesStayPng() throws IOException
+    {
+        byte[] resized = imageResizer.resize(png(800, 800, BufferedImage.TYPE_INT_ARGB), 320);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(resized));
+        assertEquals("image/png", ImageResizer.contentTypeOf(resized));
+        assertTrue(image.getColorModel().hasAlpha());
+        assertEquals(320, image.getWidth());
+    }
+
+    @Test
+    void testNeverUpscales() throws IOException
+    {
+        byte[] resized = imageResizer.resize(png(300, 200, BufferedImage.TYPE_INT_RGB), 1280);
+
+        assertEquals(300, ImageIO.read(new ByteArrayInputStream(resized)).getWidth());
+    }
+
+    @Test
+    void testOnlyListedWidthsAreAllowed()
+    {
+        assertTrue(ImageResizer.isAllowedWidth(640));
+        assertFalse(ImageResizer.isAllowedWidth(641));
+        assertFalse(ImageResizer.isAllowedWidth(-1));
+    }
+
+    private ByteArrayInputStream png(int width, int height, int type) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, type), "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
@@ -0,0 +1,45 @@
+package app.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest
+{
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+
+    @Test
+    void testHistogramRendersCumulativeBuckets()
+    {
+        Histogram histogram = registry.histogram("test_latency_seconds", "Test latency", "query", "OrderMapper.test");
+        histogram.observe(0.002);
+        histogram.observe(0.3);
+
+        String body = registry.render();
+
+        assertTrue(body.contains("# TYPE test_latency_seconds histogram"));
+        assertTrue(body.contains("test_latency_seconds_bucket{query=\"OrderMapper.test\",le=\"0.001\"} 0"));
+        assertTrue(body.contains("test_latency_seconds_bucket{query=\"OrderMapper.test\",le=\"0.0025\"} 1"));
+        assertTrue(body.contains("test_latency_seconds_bucket{query=\"OrderMapper.test\",le=\"+Inf\"} 2"));
+        assertTrue(body.contains("test_latency_seconds_count{query=\"OrderMapper.test\"} 2"));
+    }
+
+    @Test
+    void testCounterAndGaugeRender()
+    {
+        registry.counter("test_rows_total", "Test rows").add(3);
+        registry.gauge("test_pool_active", "Test gauge", () -> 2);
+
+        String body = registry.render();
+
+        assertTrue(body.contains("test_rows_total 3"));
+        assertTrue(body.contains("test_pool_active 2.0"));
+    }
+
+    @Test
+    void testSameNameWithOtherTypeIsRejected()
+    {
+        registry.counter("test_mixed", "Test");
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("test_mixed", "Test"));
+    }
+}
@@ -0,0 +1,118 @@
+package app.persistence;
+
+import app.dto.CatalogDTO;
+import app.entities.Bottom;
+import app.entities.Topping;
+import app.exceptions.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest
+{
+    private List<Bottom> bottomsInDatabase;
+    private List<Topping> toppingsInDatabase;
+    private int bottomQueries;
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp()
+    {
+        bottomsInDatabase = new ArrayList<>(List.of(new Bottom(1, "Chokolade", 500), new Bottom(2, "Vanilje", 500)));
+        toppingsInDatabase = new ArrayList<>(List.of(new Topping(1, "Blåbær", 500)));
+        bottomQueries = 0;
+
+        BottomMapper bottomMapper = new BottomMapper(null)
+        {
+            @Override
+            public List<Bottom> getAllBottoms()
+            {
+                bottomQueries++;
+                return new ArrayList<>(bottomsInDatabase);
+            }
+        };
+
+        ToppingMapper toppingMapper = new ToppingMapper(null)
+        {
+            @Override
+            public List<Topping> getAllToppings()
+            {
+                return new ArrayList<>(toppingsInDatabase);
+            }
+        };
+
+        catalogCache = new CatalogCache(bottomMapper, toppingMapper);
+    }
+
+    @Test
+    void testLookupsLoadCatalogOnce() throws DatabaseException
+    {
+        assertEquals(2, catalogCache.getAllBottoms().size());
+        assertEquals("Vanilje", catalogCache.getBottomById(2).getName());
+        assertEquals("Blåbær", catalogCache.getToppingById(1).getName());
+        assertNull(catalogCache.getBottomById(99));
+
+        assertEquals(1, bottomQueries);
+    }
+
+    @Test
+    void testRefreshSwapsInNewCatalog() throws DatabaseException
+    {
+        List<Bottom> before = catalogCache.getAllBottoms();
+
+        bottomsInDatabase.add(new Bottom(3, "Mandel", 700));
+        catalogCache.refresh();
+
+        assertEquals(2, before.size());
+        assertEquals(3, catalogCache.getAllBottoms().size());
+        assertEquals("Mandel", catalogCache.getBottomById(3).getName());
+    }
+
+    @Test
+    void testVersionChangesOnlyOnRefresh() throws DatabaseException
+    {
+        long version = catalogCache.getVersion();
+
+        assertEquals(version, catalogCache.getVersion());
+        catalogCache.refresh();
+        assertNotEquals(version, catalogCache.getVersion());
+    }
+
+    @Test
+    void testCatalogKeepsListsAndVersionOfOneLoad() throws DatabaseException
+    {
+        CatalogDTO before = catalogCache.getCatalog();
+
+        bottomsInDatabase.add(new Bottom(3, "Mandel", 700));
+        catalogCache.refresh();
+        CatalogDTO after = catalogCache.getCatalog();
+
+        assertEquals(2, before.getBottoms().size());
+        assertEquals(3, after.getBottoms().size());
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(catalogCache.getVersion(), after.getVersion());
+    }
+
+    @Test
+    void testCachedListsAreReadOnly() throws DatabaseException
+    {
+        assertThrows(UnsupportedOperationException.class,
+                () -> catalogCache.getAllToppings().add(new Topping(2, "Citron", 800)));
+    }
+
+    @Test
+    void testRefreshListenersSeeNewCatalog() throws DatabaseException
+    {
+        List<Integer> bottomCounts = new ArrayList<>();
+        catalogCache.addRefreshListener(() -> bottomCounts.add(bottomsInDatabase.size()));
+
+        bottomsInDatabase.add(new Bottom(3, "Mandel", 700));
+        catalogCache.refresh();
+
+        assertEquals(List.of(3), bottomCounts);
+    }
+}
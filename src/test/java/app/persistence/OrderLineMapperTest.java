@@ -68,7 +68,7 @@ class OrderLineMapperTest
                                     phonenumber integer NOT NULL,
                                     street varchar,
                                     zip_code integer,
-                                    balance double precision NOT NULL DEFAULT 0,
+                                    balance bigint NOT NULL DEFAULT 0,
                                     admin boolean NOT NULL DEFAULT false,
                                     is_guest boolean NOT NULL DEFAULT false,
                                     created_at timestamp with time zone NOT NULL DEFAULT now(),
@@ -84,7 +84,7 @@ class OrderLineMapperTest
                                     order_date timestamp with time zone NOT NULL DEFAULT now(),
                                     pickup_date timestamp with time zone NOT NULL,
                                     paid boolean NOT NULL DEFAULT false,
-                                    price_total double precision NOT NULL,
+                                    price_total bigint NOT NULL,
                                     FOREIGN KEY (user_id) REFERENCES test.users(user_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE
                                 )
@@ -94,7 +94,7 @@ class OrderLineMapperTest
                                 CREATE TABLE test.bottoms (
                                     bottom_id serial PRIMARY KEY,
                                     bottom_flavour varchar NOT NULL UNIQUE,
-                                    bottom_price double precision NOT NULL
+                                    bottom_price bigint NOT NULL
                                 )
                             """);
 
@@ -102,7 +102,7 @@ class OrderLineMapperTest
                                 CREATE TABLE test.toppings (
                                     topping_id serial PRIMARY KEY,
                                     topping_flavour varchar NOT NULL UNIQUE,
-                                    topping_price double precision NOT NULL
+                                    topping_price bigint NOT NULL
                                 )
                             """);
 
@@ -113,7 +113,7 @@ class OrderLineMapperTest
                                     topping_id integer NOT NULL,
                                     bottom_id integer NOT NULL,
                                     quantity integer NOT NULL,
-                                    orderline_price double precision NOT NULL,
+                                    orderline_price bigint NOT NULL,
                                     FOREIGN KEY (order_id) REFERENCES test.orders(order_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE,
                                     FOREIGN KEY (topping_id) REFERENCES test.toppings(topping_id)
@@ -164,24 +164,24 @@ class OrderLineMapperTest
                         "(8000, 'Aarhus C')");
 
                 stmt.execute("INSERT INTO test.users (user_id, firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest) VALUES " +
-                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 100.0, false, false), " +
-                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 200.0, false, false)");
+                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 10000, false, false), " +
+                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 20000, false, false)");
 
                 stmt.execute("INSERT INTO test.bottoms (bottom_id, bottom_flavour, bottom_price) VALUES " +
-                        "(1, 'Chocolate', 5.00), " +
-                        "(2, 'Vanilla', 5.00), " +
-                        "(3, 'Nutmeg', 5.00), " +
-                        "(4, 'Pistacio', 6.00)");
+                        "(1, 'Chocolate', 500), " +
+                        "(2, 'Vanilla', 500), " +
+                        "(3, 'Nutmeg', 500), " +
+                        "(4, 'Pistacio', 600)");
 
                 stmt.execute("INSERT INTO test.toppings (topping_id, topping_flavour, topping_price) VALUES " +
-                        "(1, 'Chocolate', 5.00), " +
-                        "(2, 'Blueberry', 5.00), " +
-                        "(3, 'Raspberry', 5.00), " +
-                        "(4, 'Strawberry', 6.00)");
+                        "(1, 'Chocolate', 500), " +
+                        "(2, 'Blueberry', 500), " +
+                        "(3, 'Raspberry', 500), " +
+                        "(4, 'Strawberry', 600)");
 
                 stmt.execute("INSERT INTO test.orders (order_id, user_id, order_date, pickup_date, paid, price_total) VALUES " +
                         "(1, 1, '" + Timestamp.valueOf(LocalDateTime.now()) + "', '" +
-                        Timestamp.valueOf(LocalDateTime.now().plusDays(2)) + "', false, 30.00)");
+                        Timestamp.valueOf(LocalDateTime.now().plusDays(2)) + "', false, 3000)");
 
                 stmt.execute("SELECT setval('test.users_user_id_seq', COALESCE((SELECT MAX(user_id)+1 FROM test.users), 1), false)");
                 stmt.execute("SELECT setval('test.orders_order_id_seq', COALESCE((SELECT MAX(order_id)+1 FROM test.orders), 1), false)");
@@ -189,16 +189,16 @@ class OrderLineMapperTest
                 stmt.execute("SELECT setval('test.toppings_topping_id_seq', COALESCE((SELECT MAX(topping_id)+1 FROM test.toppings), 1), false)");
             }
 
-            Bottom bottomChocolate = new Bottom(1, "Chocolate", 5.0);
-            Topping toppingChocolate = new Topping(1, "Chocolate", 5.0);
+            Bottom bottomChocolate = new Bottom(1, "Chocolate", 500);
+            Topping toppingChocolate = new Topping(1, "Chocolate", 500);
             cupcakeChocolate = new Cupcake(bottomChocolate, toppingChocolate);
 
-            Bottom bottomVanilla = new Bottom(2, "Vanilla", 5.0);
-            Topping toppingBlueberry = new Topping(2, "Blueberry", 5.0);
+            Bottom bottomVanilla = new Bottom(2, "Vanilla", 500);
+            Topping toppingBlueberry = new Topping(2, "Blueberry", 500);
             cupcakeVanilla = new Cupcake(bottomVanilla, toppingBlueberry);
 
-            Bottom bottomPistacio = new Bottom(4, "Pistacio", 6.0);
-            Topping toppingStrawberry = new Topping(4, "Strawberry", 6.0);
+            Bottom bottomPistacio = new Bottom(4, "Pistacio", 600);
+            Topping toppingStrawberry = new Topping(4, "Strawberry", 600);
             cupcakePistacioStrawberry = new Cupcake(bottomPistacio, toppingStrawberry);
         }
         catch (SQLException e)
@@ -275,6 +275,28 @@ class OrderLineMapperTest
         assertEquals(3, retrievedLines.size());
     }
 
+    @Test
+    void testInsertLargeBatchOfOrderLines() throws SQLException, DatabaseException
+    {
+        List<OrderLine> orderLines = new ArrayList<>();
+        for (int i = 1; i <= 500; i++)
+        {
+            orderLines.add(new OrderLine(i % 2 == 0 ? cupcakeChocolate : cupcakeVanilla, i));
+        }
+
+        try (Connection connection = connectionPool.getConnection())
+        {
+            connection.setAutoCommit(false);
+            orderLineMapper.insertOrderLines(connection, 1, orderLines);
+            connection.commit();
+        }
+
+        List<OrderLine> retrievedLines = orderLineMapper.getOrderLinesByOrderId(1);
+
+        assertEquals(500, retrievedLines.size());
+        assertEquals(500 * 501 / 2, retrievedLines.stream().mapToInt(OrderLine::getQuantity).sum());
+    }
+
     @Test
     void testGetOrderLinesByOrderId() throws SQLException, DatabaseException
     {
@@ -298,8 +320,8 @@ class OrderLineMapperTest
         assertEquals(2, line1.getQuantity());
         assertEquals("Chocolate", line1.getCupcake().getBottom().getName());
         assertEquals("Chocolate", line1.getCupcake().getTopping().getName());
-        assertEquals(5.0, line1.getCupcake().getBottom().getPrice());
-        assertEquals(5.0, line1.getCupcake().getTopping().getPrice());
+        assertEquals(500, line1.getCupcake().getBottom().getPrice());
+        assertEquals(500, line1.getCupcake().getTopping().getPrice());
 
         OrderLine line2 = retrievedLines.get(1);
         assertEquals(3, line2.getQuantity());
@@ -391,8 +413,8 @@ class OrderLineMapperTest
     @Test
     void testInsertOrderLineWithInvalidToppingId()
     {
-        Bottom validBottom = new Bottom(1, "Chocolate", 5.0);
-        Topping invalidTopping = new Topping(999, "Invalid", 5.0);
+        Bottom validBottom = new Bottom(1, "Chocolate", 500);
+        Topping invalidTopping = new Topping(999, "Invalid", 500);
         Cupcake invalidCupcake = new Cupcake(validBottom, invalidTopping);
 
         List<OrderLine> orderLines = new ArrayList<>();
@@ -1,5 +1,6 @@
 package app.persistence;
 
+import app.dto.RevenueDTO;
 import app.dto.UserDTO;
 import app.entities.*;
 import app.exceptions.DatabaseException;
@@ -11,8 +12,13 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,11 +31,13 @@ class OrderMapperTest
     private static ConnectionPool connectionPool;
     private static OrderMapper orderMapper;
     private static OrderLineMapper orderLineMapper;
+    private static StatisticMapper statisticMapper;
+    private static UserMapper userMapper;
 
-    Bottom bottomChocolate = new Bottom(1, "Chocolate", 5.0);
-    Topping toppingChocolate = new Topping(1, "Chocolate", 5.0);
-    Bottom bottomPistacio = new Bottom(4, "Pistacio", 6.0);
-    Topping toppingStrawberry = new Topping(4, "Strawberry", 6.0);
+    Bottom bottomChocolate = new Bottom(1, "Chocolate", 500);
+    Topping toppingChocolate = new Topping(1, "Chocolate", 500);
+    Bottom bottomPistacio = new Bottom(4, "Pistacio", 600);
+    Topping toppingStrawberry = new Topping(4, "Strawberry", 600);
 
     Cupcake cupcakeChocolate = new Cupcake(bottomChocolate, toppingChocolate);
     Cupcake cupcakePistacioStrawberry = new Cupcake(bottomPistacio, toppingStrawberry);
@@ -42,6 +50,8 @@ class OrderMapperTest
             connectionPool = ConnectionPool.getInstance(USER, PASSWORD, URL, "cupcake");
             orderLineMapper = new OrderLineMapper(connectionPool);
             orderMapper = new OrderMapper(connectionPool, orderLineMapper);
+            statisticMapper = new StatisticMapper(connectionPool);
+            userMapper = new UserMapper(connectionPool);
 
             try (Connection testConnection = connectionPool.getConnection())
             {
@@ -71,7 +81,7 @@ class OrderMapperTest
                                     phonenumber integer NOT NULL,
                                     street varchar,
                                     zip_code integer,
-                                    balance double precision NOT NULL DEFAULT 0,
+                                    balance bigint NOT NULL DEFAULT 0,
                                     admin boolean NOT NULL DEFAULT false,
                                     is_guest boolean NOT NULL DEFAULT false,
                                     created_at timestamp with time zone NOT NULL DEFAULT now(),
@@ -87,7 +97,7 @@ class OrderMapperTest
                                     order_date timestamp with time zone NOT NULL DEFAULT now(),
                                     pickup_date timestamp with time zone NOT NULL,
                                     paid boolean NOT NULL DEFAULT false,
-                                    price_total double precision NOT NULL,
+                                    price_total bigint NOT NULL,
                                     FOREIGN KEY (user_id) REFERENCES test.users(user_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE
                                 )
@@ -97,7 +107,7 @@ class OrderMapperTest
                                 CREATE TABLE test.bottoms (
                                     bottom_id serial PRIMARY KEY,
                                     bottom_flavour varchar NOT NULL UNIQUE,
-                                    bottom_price double precision NOT NULL
+                                    bottom_price bigint NOT NULL
                                 )
                             """);
 
@@ -105,7 +115,7 @@ class OrderMapperTest
                                 CREATE TABLE test.toppings (
                                     topping_id serial PRIMARY KEY,
                                     topping_flavour varchar NOT NULL UNIQUE,
-                                    topping_price double precision NOT NULL
+                                    topping_price bigint NOT NULL
                                 )
                             """);
 
@@ -116,7 +126,7 @@ class OrderMapperTest
                                     topping_id integer NOT NULL,
                                     bottom_id integer NOT NULL,
                                     quantity integer NOT NULL,
-                                    orderline_price double precision NOT NULL,
+                                    orderline_price bigint NOT NULL,
                                     FOREIGN KEY (order_id) REFERENCES test.orders(order_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE,
                                     FOREIGN KEY (topping_id) REFERENCES test.toppings(topping_id)
@@ -167,21 +177,21 @@ class OrderMapperTest
                         "(8000, 'Aarhus C')");
 
                 stmt.execute("INSERT INTO test.users (user_id, firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest) VALUES " +
-                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 100.0, false, false), " +
-                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 200.0, false, false), " +
-                        "(3, 'Admin', 'Adminson', 'admin@test.dk', 'admin123', 11111111, 'Adminvej 3', 8000, 0.0, true, false)");
+                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 10000, false, false), " +
+                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 20000, false, false), " +
+                        "(3, 'Admin', 'Adminson', 'admin@test.dk', 'admin123', 11111111, 'Adminvej 3', 8000, 0, true, false)");
 
                 stmt.execute("INSERT INTO test.bottoms (bottom_id, bottom_flavour, bottom_price) VALUES " +
-                        "(1, 'Chocolate', 5.00), " +
-                        "(2, 'Vanilla', 5.00), " +
-                        "(3, 'Nutmeg', 5.00), " +
-                        "(4, 'Pistacio', 6.00)");
+                        "(1, 'Chocolate', 500), " +
+                        "(2, 'Vanilla', 500), " +
+                        "(3, 'Nutmeg', 500), " +
+                        "(4, 'Pistacio', 600)");
 
                 stmt.execute("INSERT INTO test.toppings (topping_id, topping_flavour, topping_price) VALUES " +
-                        "(1, 'Chocolate', 5.00), " +
-                        "(2, 'Blueberry', 5.00), " +
-                        "(3, 'Raspberry', 5.00), " +
-                        "(4, 'Strawberry', 6.00)");
+                        "(1, 'Chocolate', 500), " +
+                        "(2, 'Blueberry', 500), " +
+                        "(3, 'Raspberry', 500), " +
+                        "(4, 'Strawberry', 600)");
 
                 stmt.execute("SELECT setval('test.users_user_id_seq', COALESCE((SELECT MAX(user_id)+1 FROM test.users), 1), false)");
                 stmt.execute("SELECT setval('test.bottoms_bottom_id_seq', COALESCE((SELECT MAX(bottom_id)+1 FROM test.bottoms), 1), false)");
@@ -204,7 +214,7 @@ class OrderMapperTest
     @Test
     void testCreateOrder() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
 
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
@@ -212,13 +222,13 @@ class OrderMapperTest
         LocalDateTime orderDate = LocalDateTime.now();
         LocalDateTime pickupDate = LocalDateTime.now().plusDays(2);
 
-        Order order = new Order(0, user, orderDate, pickupDate, false, orderLines, 20.0);
+        Order order = new Order(0, user, orderDate, pickupDate, false, orderLines, 2000);
 
         Order createdOrder = orderMapper.createOrder(order);
 
         assertNotNull(createdOrder);
         assertTrue(createdOrder.getOrderId() > 0);
-        assertEquals(20.0, createdOrder.getTotalPrice());
+        assertEquals(2000, createdOrder.getTotalPrice());
         assertFalse(createdOrder.isPaid());
         assertEquals(1, createdOrder.getOrderlines().size());
     }
@@ -226,37 +236,37 @@ class OrderMapperTest
     @Test
     void testCreateOrderWithMultipleOrderLines() throws DatabaseException
     {
-        UserDTO user = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 200.0);
+        UserDTO user = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 20000);
 
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
         orderLines.add(new OrderLine(cupcakePistacioStrawberry, 4));
 
-        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines, 68.0);
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines, 6800);
 
         Order createdOrder = orderMapper.createOrder(order);
 
         assertNotNull(createdOrder);
-        assertEquals(68.0, createdOrder.getTotalPrice());
+        assertEquals(6800, createdOrder.getTotalPrice());
         assertEquals(2, createdOrder.getOrderlines().size());
     }
 
     @Test
     void testGetOrderByOrderId() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
         orderLines.add(new OrderLine(cupcakePistacioStrawberry, 3));
 
-        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 56.00);
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 5600);
         Order createdOrder = orderMapper.createOrder(order);
 
         Order retrievedOrder = orderMapper.getOrderByOrderId(createdOrder.getOrderId(), 1);
 
         assertNotNull(retrievedOrder);
         assertEquals(createdOrder.getOrderId(), retrievedOrder.getOrderId());
-        assertEquals(56.0, retrievedOrder.getTotalPrice());
+        assertEquals(5600, retrievedOrder.getTotalPrice());
         assertTrue(retrievedOrder.isPaid());
         assertEquals("Hans", retrievedOrder.getUserDTO().getFirstName());
         assertEquals(2, retrievedOrder.getOrderlines().size());
@@ -272,12 +282,12 @@ class OrderMapperTest
     @Test
     void testGetOrderByOrderIdWrongUser() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
         orderLines.add(new OrderLine(cupcakePistacioStrawberry, 3));
 
-        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 54.00);
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 5400);
         Order createdOrder = orderMapper.createOrder(order);
 
         assertThrows(DatabaseException.class,
@@ -287,7 +297,7 @@ class OrderMapperTest
     @Test
     void testGetOrdersByUserId() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
 
         List<OrderLine> orderLines1 = new ArrayList<>();
         List<OrderLine> orderLines2 = new ArrayList<>();
@@ -296,8 +306,8 @@ class OrderMapperTest
         orderLines2.add(new OrderLine(cupcakeChocolate, 1));
         orderLines2.add(new OrderLine(cupcakePistacioStrawberry, 1));
 
-        Order order1 = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines1, 56.0);
-        Order order2 = new Order(1, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines2, 22.0);
+        Order order1 = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines1, 5600);
+        Order order2 = new Order(1, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines2, 2200);
 
         orderMapper.createOrder(order1);
         orderMapper.createOrder(order2);
@@ -312,7 +322,7 @@ class OrderMapperTest
     @Test
     void testGetOrdersByUserIdNoOrders() throws DatabaseException
     {
-        UserDTO user = new UserDTO(3, "Admin", "Adminson", "admin@test.dk", 11111111, "Adminvej 3", 8000, "Aarhus C", 0.0);
+        UserDTO user = new UserDTO(3, "Admin", "Adminson", "admin@test.dk", 11111111, "Adminvej 3", 8000, "Aarhus C", 0);
 
         List<Order> orders = orderMapper.getOrdersByUserId(user);
 
@@ -323,8 +333,8 @@ class OrderMapperTest
     @Test
     void testGetAllOrders() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
-        UserDTO user2 = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 200.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        UserDTO user2 = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 20000);
 
         List<OrderLine> orderLines1 = new ArrayList<>();
         List<OrderLine> orderLines2 = new ArrayList<>();
@@ -335,9 +345,9 @@ class OrderMapperTest
         orderLines2.add(new OrderLine(cupcakePistacioStrawberry, 1));
         orderLines3.add(new OrderLine(cupcakeChocolate, 1));
 
-        Order order1 = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines1, 56.0);
-        Order order2 = new Order(1, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines2, 22.0);
-        Order order3 = new Order(2, user2, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines3, 10.0);
+        Order order1 = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines1, 5600);
+        Order order2 = new Order(1, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines2, 2200);
+        Order order3 = new Order(2, user2, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines3, 1000);
 
         orderMapper.createOrder(order1);
         orderMapper.createOrder(order2);
@@ -349,15 +359,121 @@ class OrderMapperTest
         assertEquals(3, allOrders.size());
     }
 
+    @Test
+    void testGetAllOrdersAttachesOrderLinesToTheirOrder() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        UserDTO user2 = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 20000);
+
+        List<OrderLine> orderLines1 = new ArrayList<>();
+        List<OrderLine> orderLines2 = new ArrayList<>();
+        orderLines1.add(new OrderLine(cupcakeChocolate, 2));
+        orderLines1.add(new OrderLine(cupcakePistacioStrawberry, 3));
+        orderLines2.add(new OrderLine(cupcakePistacioStrawberry, 1));
+
+        Order order1 = orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines1, 5600));
+        Order order2 = orderMapper.createOrder(new Order(0, user2, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines2, 1200));
+        Order order3 = orderMapper.createOrder(new Order(0, user2, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, new ArrayList<>(), 0));
+
+        List<Order> allOrders = orderMapper.getAllOrders();
+
+        for (Order order : allOrders)
+        {
+            if (order.getOrderId() == order1.getOrderId())
+            {
+                assertEquals(2, order.getOrderlines().size());
+                assertEquals("Chocolate", order.getOrderlines().get(0).getCupcake().getBottom().getName());
+            }
+            else if (order.getOrderId() == order2.getOrderId())
+            {
+                assertEquals(1, order.getOrderlines().size());
+                assertEquals("Pistacio", order.getOrderlines().get(0).getCupcake().getBottom().getName());
+            }
+            else if (order.getOrderId() == order3.getOrderId())
+            {
+                assertNotNull(order.getOrderlines());
+                assertTrue(order.getOrderlines().isEmpty());
+            }
+        }
+        assertEquals(3, allOrders.size());
+    }
+
+    @Test
+    void testSearchOrdersByOrderId() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        List<OrderLine> orderLines = new ArrayList<>();
+        orderLines.add(new OrderLine(cupcakeChocolate, 2));
+
+        Order createdOrder = orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines, 2000));
+
+        List<Order> found = orderMapper.searchOrdersByOrderId(createdOrder.getOrderId());
+
+        assertEquals(1, found.size());
+        assertEquals(1, found.get(0).getOrderlines().size());
+        assertTrue(orderMapper.searchOrdersByOrderId(999).isEmpty());
+    }
+
+    @Test
+    void testSearchOrdersByNameAndEmail() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        UserDTO user2 = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 20000);
+
+        List<OrderLine> orderLines = new ArrayList<>();
+        orderLines.add(new OrderLine(cupcakeChocolate, 1));
+
+        orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines, 1000));
+        orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(1), true, orderLines, 1000));
+        orderMapper.createOrder(new Order(0, user2, LocalDateTime.now(), LocalDateTime.now().plusDays(1), false, orderLines, 1000));
+
+        assertEquals(2, orderMapper.searchOrdersByName("hans", 100).size());
+        assertEquals(1, orderMapper.searchOrdersByName("JENSEN", 100).size());
+        assertEquals(1, orderMapper.searchOrdersByName("hans", 1).size());
+        assertEquals(1, orderMapper.searchOrdersByEmail("JENS@", 100).size());
+        assertTrue(orderMapper.searchOrdersByEmail("%", 100).isEmpty());
+    }
+
+    @Test
+    void testGetOrdersPageWalksAllOrdersNewestFirst() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        UserDTO user2 = new UserDTO(2, "Jens", "Jensen", "jens@test.dk", 87654321, "Prøvevej 2", 2100, "København Ø", 20000);
+        LocalDateTime orderDate = LocalDateTime.now().withNano(0);
+
+        List<OrderLine> orderLines = new ArrayList<>();
+        orderLines.add(new OrderLine(cupcakeChocolate, 1));
+
+        for (int i = 0; i < 5; i++)
+        {
+            orderMapper.createOrder(new Order(0, user, orderDate.minusDays(i), orderDate.plusDays(1), i % 2 == 0, orderLines, 1000));
+        }
+        orderMapper.createOrder(new Order(0, user2, orderDate, orderDate.plusDays(1), false, orderLines, 1000));
+
+        List<Order> firstPage = orderMapper.getOrdersPage(null, 0, 4);
+        Order lastOnFirstPage = firstPage.get(firstPage.size() - 1);
+        List<Order> secondPage = orderMapper.getOrdersPage(lastOnFirstPage.getOrderDate(), lastOnFirstPage.getOrderId(), 4);
+
+        assertEquals(4, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertFalse(firstPage.get(0).getOrderDate().isBefore(firstPage.get(1).getOrderDate()));
+        assertTrue(secondPage.get(0).getOrderDate().isBefore(lastOnFirstPage.getOrderDate())
+                || secondPage.get(0).getOrderId() < lastOnFirstPage.getOrderId());
+
+        List<Order> userPage = orderMapper.getOrdersPageByUserId(2, null, 0, 4);
+        assertEquals(1, userPage.size());
+        assertEquals(1, userPage.get(0).getOrderlines().size());
+    }
+
     @Test
     void testDeleteOrder() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
         orderLines.add(new OrderLine(cupcakePistacioStrawberry, 3));
 
-        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 54.00);
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 5400);
         Order createdOrder = orderMapper.createOrder(order);
 
         boolean result = orderMapper.deleteOrder(createdOrder.getOrderId());
@@ -378,12 +494,12 @@ class OrderMapperTest
     @Test
     void testUpdateOrderStatus() throws DatabaseException
     {
-        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 100.0);
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
         List<OrderLine> orderLines = new ArrayList<>();
         orderLines.add(new OrderLine(cupcakeChocolate, 2));
         orderLines.add(new OrderLine(cupcakePistacioStrawberry, 3));
 
-        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 54.00);
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 5400);
         Order createdOrder = orderMapper.createOrder(order);
 
         assertFalse(createdOrder.isPaid());
@@ -394,4 +510,167 @@ class OrderMapperTest
         Order updatedOrder = orderMapper.getOrderByOrderId(createdOrder.getOrderId(), 1);
         assertTrue(updatedOrder.isPaid());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpdateOrderStatusReturnsPreviousStatus() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        List<OrderLine> orderLines = new ArrayList<>();
+        orderLines.add(new OrderLine(cupcakeChocolate, 2));
+
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 2000);
+        Order createdOrder = orderMapper.createOrder(order);
+
+        Order firstUpdate = orderMapper.updateOrderStatusReturningPrevious(createdOrder.getOrderId(), true);
+        Order secondUpdate = orderMapper.updateOrderStatusReturningPrevious(createdOrder.getOrderId(), true);
+
+        assertFalse(firstUpdate.isPaid());
+        assertTrue(secondUpdate.isPaid());
+        assertEquals(2000, secondUpdate.getTotalPrice());
+        assertNull(orderMapper.updateOrderStatusReturningPrevious(999, true));
+    }
+
+    @Test
+    void testStatisticQueriesSumOnlyPaidOrders() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        LocalDateTime october = LocalDateTime.of(2025, 10, 15, 12, 0);
+        LocalDateTime november = LocalDateTime.of(2025, 11, 2, 9, 30);
+
+        orderMapper.createOrder(new Order(0, user, october, october.plusDays(2), true, new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 2))), 2000));
+        orderMapper.createOrder(new Order(0, user, october, october.plusDays(2), true, new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 4))), 4000));
+        orderMapper.createOrder(new Order(0, user, november, november.plusDays(2), true, new ArrayList<>(List.of(new OrderLine(cupcakePistacioStrawberry, 5))), 6000));
+        orderMapper.createOrder(new Order(0, user, november, november.plusDays(2), false, new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 1))), 1000));
+
+        RevenueDTO summary = statisticMapper.getRevenueSummary();
+        assertEquals(12000, summary.getRevenue());
+        assertEquals(3, summary.getOrderCount());
+        assertEquals(4000, summary.getAverageOrderValue());
+
+        RevenueDTO octoberRevenue = statisticMapper.getMonthlyRevenue(YearMonth.of(2025, 10));
+        assertEquals(6000, octoberRevenue.getRevenue());
+        assertEquals(2, octoberRevenue.getOrderCount());
+        assertEquals(0, statisticMapper.getMonthlyRevenue(YearMonth.of(2025, 9)).getRevenue());
+
+        List<RevenueDTO> byMonth = statisticMapper.getRevenueByMonth();
+        assertEquals(2, byMonth.size());
+        assertEquals(YearMonth.of(2025, 11), byMonth.get(1).getMonth());
+        assertEquals(6000, byMonth.get(1).getRevenue());
+    }
+
+    @Test
+    void testConcurrentPaidOrdersNeverOverdrawBalance() throws Exception
+    {
+        int checkouts = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < checkouts; i++)
+        {
+            results.add(executor.submit(() ->
+            {
+                UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+                List<OrderLine> orderLines = new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 2)));
+                Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 2000);
+
+                startSignal.await();
+                try
+                {
+                    orderMapper.createOrder(order, true);
+                    return true;
+                }
+                catch (DatabaseException e)
+                {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results)
+        {
+            if (result.get())
+            {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(5, succeeded);
+        assertEquals(0, userMapper.getUserById(1).getBalance());
+        assertEquals(5, orderMapper.getAllOrders().size());
+    }
+
+    @Test
+    void testConcurrentRefundsAndDebitsKeepEveryBalanceChange() throws Exception
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        List<Integer> paidOrderIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            List<OrderLine> orderLines = new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 1)));
+            paidOrderIds.add(orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 1000)).getOrderId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int orderId : paidOrderIds)
+        {
+            results.add(executor.submit(() ->
+            {
+                startSignal.await();
+                return orderMapper.deleteOrderReturningOrder(orderId, true) != null;
+            }));
+        }
+        for (int i = 0; i < 5; i++)
+        {
+            results.add(executor.submit(() ->
+            {
+                List<OrderLine> orderLines = new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 2)));
+                Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 2000);
+
+                startSignal.await();
+                orderMapper.createOrder(order, true);
+                return true;
+            }));
+        }
+        startSignal.countDown();
+
+        for (Future<Boolean> result : results)
+        {
+            assertTrue(result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(10000 + 10 * 1000 - 5 * 2000, userMapper.getUserById(1).getBalance());
+        assertEquals(5, orderMapper.getAllOrders().size());
+    }
+
+    @Test
+    void testDeleteUnpaidOrderDoesNotRefund() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        List<OrderLine> orderLines = new ArrayList<>(List.of(new OrderLine(cupcakeChocolate, 2)));
+        Order createdOrder = orderMapper.createOrder(new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), false, orderLines, 2000));
+
+        assertNotNull(orderMapper.deleteOrderReturningOrder(createdOrder.getOrderId(), true));
+        assertNull(orderMapper.deleteOrderReturningOrder(createdOrder.getOrderId(), true));
+        assertEquals(10000, userMapper.getUserById(1).getBalance());
+    }
+
+    @Test
+    void testPaidOrderWithInsufficientBalanceIsRolledBack() throws DatabaseException
+    {
+        UserDTO user = new UserDTO(1, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+        List<OrderLine> orderLines = new ArrayList<>(List.of(new OrderLine(cupcakePistacioStrawberry, 20)));
+        Order order = new Order(0, user, LocalDateTime.now(), LocalDateTime.now().plusDays(2), true, orderLines, 22000);
+
+        assertThrows(DatabaseException.class, () -> orderMapper.createOrder(order, true));
+        assertEquals(10000, userMapper.getUserById(1).getBalance());
+        assertTrue(orderMapper.getAllOrders().isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+package app.persistence;
+
+import app.dto.RevenueDTO;
+import app.exceptions.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevenueAggregateStoreTest
+{
+    private int rebuildQueries;
+    private RevenueAggregateStore revenueAggregateStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        rebuildQueries = 0;
+
+        StatisticMapper statisticMapper = new StatisticMapper(null)
+        {
+            @Override
+            public List<RevenueDTO> getRevenueByMonth()
+            {
+                rebuildQueries++;
+                return List.of(
+                        new RevenueDTO(YearMonth.of(2025, 10), 10000, 2, 5000),
+                        new RevenueDTO(YearMonth.of(2025, 11), 5000, 1, 5000)
+                );
+            }
+        };
+
+        revenueAggregateStore = new RevenueAggregateStore(statisticMapper);
+    }
+
+    @Test
+    void testRebuildLoadsTotals() throws DatabaseException
+    {
+        assertEquals(15000, revenueAggregateStore.getTotalRevenue());
+        assertEquals(3, revenueAggregateStore.getPaidOrderCount());
+        assertEquals(10000, revenueAggregateStore.getMonthlyRevenue(YearMonth.of(2025, 10)));
+        assertEquals(0, revenueAggregateStore.getMonthlyRevenue(YearMonth.of(2024, 1)));
+        assertEquals(5000, revenueAggregateStore.getAverageOrderValue());
+        assertEquals(1, rebuildQueries);
+    }
+
+    @Test
+    void testAddAndRemovePaidOrders() throws DatabaseException
+    {
+        revenueAggregateStore.rebuild();
+
+        revenueAggregateStore.addPaidOrder(LocalDateTime.of(2025, 12, 24, 10, 0), 3000);
+        revenueAggregateStore.removePaidOrder(LocalDateTime.of(2025, 11, 3, 12, 0), 5000);
+
+        assertEquals(13000, revenueAggregateStore.getTotalRevenue());
+        assertEquals(3, revenueAggregateStore.getPaidOrderCount());
+        assertEquals(3000, revenueAggregateStore.getMonthlyRevenue(YearMonth.of(2025, 12)));
+        assertEquals(0, revenueAggregateStore.getMonthlyRevenue(YearMonth.of(2025, 11)));
+        assertEquals(1, rebuildQueries);
+    }
+
+    @Test
+    void testChangesBeforeFirstLoadAreLeftToTheRebuild() throws DatabaseException
+    {
+        revenueAggregateStore.addPaidOrder(LocalDateTime.of(2025, 10, 1, 10, 0), 3000);
+
+        assertEquals(15000, revenueAggregateStore.getTotalRevenue());
+    }
+
+    @Test
+    void testRebuildDuringChangeCountsTheOrderOnce() throws Exception
+    {
+        AtomicLong paidInDatabase = new AtomicLong(15000);
+        RevenueAggregateStore store = new RevenueAggregateStore(new StatisticMapper(null)
+        {
+            @Override
+            public List<RevenueDTO> getRevenueByMonth()
+            {
+                return List.of(new RevenueDTO(YearMonth.of(2025, 10), paidInDatabase.get(), 3, 5000));
+            }
+        });
+        store.rebuild();
+
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<Object> change = executor.submit(() -> store.change(() ->
+            {
+                paidInDatabase.addAndGet(3000);
+                committed.countDown();
+                awaitUninterruptibly(release);
+                store.addPaidOrder(LocalDateTime.of(2025, 10, 2, 10, 0), 3000);
+                return null;
+            }));
+            committed.await();
+
+            Future<Object> rebuild = executor.submit(() ->
+            {
+                store.rebuild();
+                return null;
+            });
+            Thread.sleep(100);
+            assertFalse(rebuild.isDone());
+
+            release.countDown();
+            change.get(5, TimeUnit.SECONDS);
+            rebuild.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(18000, store.getTotalRevenue());
+    }
+
+    private void awaitUninterruptibly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package app.persistence;
+
+import app.dto.UserDTO;
+import app.entities.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionAttributeCodecTest
+{
+    private final Cupcake cupcake = new Cupcake(new Bottom(1, "Chokolade", 500), new Topping(2, "Blåbær", 500));
+    private final UserDTO userDTO = new UserDTO(4, "Hans", "Hansen", "hans@test.dk", 12345678, "Testvej 1", 2000, "Frederiksberg", 10000);
+
+    @Test
+    void testCheckoutStateRoundTrips() throws IOException
+    {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addOrderLineToCart(cupcake, 3);
+
+        LocalDateTime pickUp = LocalDateTime.of(2025, 11, 20, 14, 30);
+        Order order = new Order(7, userDTO, LocalDateTime.of(2025, 11, 18, 9, 15, 0, 123_000_000), pickUp, true,
+                new ArrayList<>(List.of(new OrderLine(cupcake, 2))), 2000);
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("cart", cart);
+        attributes.put("checkoutUser", userDTO);
+        attributes.put("pickUp", pickUp);
+        attributes.put("deliveryPrice", 2900L);
+        attributes.put("deliveryMethod", "pickup");
+        attributes.put("completedOrder", order);
+        attributes.put("errorMessage", null);
+
+        Map<String, Object> decoded = SessionAttributeCodec.decode(SessionAttributeCodec.encode(attributes));
+
+        assertEquals(attributes, decoded);
+        assertEquals(3000, ((ShoppingCart) decoded.get("cart")).getTotalOrderPrice());
+    }
+
+    @Test
+    void testUserPasswordIsNotStored() throws IOException
+    {
+        User user = new User(1, "Admin", "Adminson", "admin@test.dk", "$2a$12$hash", 11111111, "Adminvej 3", 8000, "Aarhus C", 0, true, false);
+
+        User decoded = (User) SessionAttributeCodec.decode(SessionAttributeCodec.encode(Map.of("currentUser", user))).get("currentUser");
+
+        assertNull(decoded.getPassword());
+        assertTrue(decoded.isAdmin());
+        assertEquals("admin@test.dk", decoded.getEmail());
+    }
+
+    @Test
+    void testUnsupportedTypeIsRejected()
+    {
+        assertThrows(NotSerializableException.class, () -> SessionAttributeCodec.encode(Map.of("list", new ArrayList<>())));
+    }
+}
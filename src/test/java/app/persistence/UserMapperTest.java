@@ -57,7 +57,7 @@ class UserMapperTest
                                     phonenumber integer NOT NULL,
                                     street varchar,
                                     zip_code integer,
-                                    balance double precision NOT NULL DEFAULT 0,
+                                    balance bigint NOT NULL DEFAULT 0,
                                     admin boolean NOT NULL DEFAULT false,
                                     is_guest boolean NOT NULL DEFAULT false,
                                     created_at timestamp with time zone NOT NULL DEFAULT now(),
@@ -73,7 +73,7 @@ class UserMapperTest
                                     order_date timestamp with time zone NOT NULL DEFAULT now(),
                                     pickup_date timestamp with time zone NOT NULL,
                                     paid boolean NOT NULL DEFAULT false,
-                                    price_total double precision NOT NULL,
+                                    price_total bigint NOT NULL,
                                     FOREIGN KEY (user_id) REFERENCES test.users(user_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE
                                 )
@@ -83,7 +83,7 @@ class UserMapperTest
                                 CREATE TABLE test.bottoms (
                                     bottom_id serial PRIMARY KEY,
                                     bottom_flavour varchar NOT NULL UNIQUE,
-                                    bottom_price double precision NOT NULL
+                                    bottom_price bigint NOT NULL
                                 )
                             """);
 
@@ -91,7 +91,7 @@ class UserMapperTest
                                 CREATE TABLE test.toppings (
                                     topping_id serial PRIMARY KEY,
                                     topping_flavour varchar NOT NULL UNIQUE,
-                                    topping_price double precision NOT NULL
+                                    topping_price bigint NOT NULL
                                 )
                             """);
 
@@ -102,7 +102,7 @@ class UserMapperTest
                                     topping_id integer NOT NULL,
                                     bottom_id integer NOT NULL,
                                     quantity integer NOT NULL,
-                                    orderline_price double precision NOT NULL,
+                                    orderline_price bigint NOT NULL,
                                     FOREIGN KEY (order_id) REFERENCES test.orders(order_id)
                                         ON DELETE CASCADE ON UPDATE CASCADE,
                                     FOREIGN KEY (topping_id) REFERENCES test.toppings(topping_id)
@@ -153,9 +153,9 @@ class UserMapperTest
                         "(8000, 'Aarhus C')");
 
                 stmt.execute("INSERT INTO test.users (user_id, firstname, lastname, email, password, phonenumber, street, zip_code, balance, admin, is_guest) VALUES " +
-                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 100.0, false, false), " +
-                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 200.0, false, false), " +
-                        "(3, 'Admin', 'Adminson', 'admin@test.dk', 'admin123', 11111111, 'Adminvej 3', 8000, 0.0, true, false)");
+                        "(1, 'Hans', 'Hansen', 'hans@test.dk', 'password123', 12345678, 'Testvej 1', 2000, 10000, false, false), " +
+                        "(2, 'Jens', 'Jensen', 'jens@test.dk', 'password456', 87654321, 'Prøvevej 2', 2100, 20000, false, false), " +
+                        "(3, 'Admin', 'Adminson', 'admin@test.dk', 'admin123', 11111111, 'Adminvej 3', 8000, 0, true, false)");
 
                 stmt.execute("SELECT setval('test.users_user_id_seq', COALESCE((SELECT MAX(user_id)+1 FROM test.users), 1), false)");
             }
@@ -191,7 +191,7 @@ class UserMapperTest
         assertEquals("Peter", newUser.getFirstName());
         assertEquals("peter@test.dk", newUser.getEmail());
         assertEquals(4, newUser.getUserId());
-        assertEquals(0.0, newUser.getBalance());
+        assertEquals(0, newUser.getBalance());
         assertFalse(newUser.isGuest());
     }
 
@@ -210,7 +210,7 @@ class UserMapperTest
         assertNotNull(guestUser);
         assertEquals("Guest", guestUser.getFirstName());
         assertTrue(guestUser.isGuest());
-        assertEquals(0.0, guestUser.getBalance());
+        assertEquals(0, guestUser.getBalance());
     }
 
     @Test
@@ -224,7 +224,7 @@ class UserMapperTest
         assertEquals("hans@test.dk", user.getEmail());
         assertEquals(2000, user.getZipCode());
         assertEquals("Frederiksberg", user.getCity());
-        assertEquals(100.0, user.getBalance());
+        assertEquals(10000, user.getBalance());
         assertFalse(user.isGuest());
     }
 
@@ -244,7 +244,7 @@ class UserMapperTest
         assertEquals(2, user.getUserId());
         assertEquals("Jens", user.getFirstName());
         assertEquals("Jensen", user.getLastName());
-        assertEquals(200.0, user.getBalance());
+        assertEquals(20000, user.getBalance());
     }
 
     @Test
@@ -256,7 +256,7 @@ class UserMapperTest
         assertEquals(2, user.getUserId());
         assertEquals("Jens", user.getFirstName());
         assertEquals("Jensen", user.getLastName());
-        assertEquals(200.0, user.getBalance());
+        assertEquals(20000, user.getBalance());
     }
 
     @Test
@@ -271,14 +271,14 @@ class UserMapperTest
     {
         User user = userMapper.getUserById(1);
         user.setFirstName("Hans Updated");
-        user.setBalance(500.0);
+        user.setBalance(50000);
 
         boolean result = userMapper.updateUser(user);
 
         assertTrue(result);
         User updatedUser = userMapper.getUserById(1);
         assertEquals("Hans Updated", updatedUser.getFirstName());
-        assertEquals(500.0, updatedUser.getBalance());
+        assertEquals(50000, updatedUser.getBalance());
     }
 
     @Test
@@ -301,11 +301,11 @@ class UserMapperTest
     @Test
     void testUpdateUserBalance() throws DatabaseException
     {
-        boolean result = userMapper.updateUserBalance(1, 999.99);
+        boolean result = userMapper.updateUserBalance(1, 99999);
 
         assertTrue(result);
         User user = userMapper.getUserById(1);
-        assertEquals(999.99, user.getBalance());
+        assertEquals(99999, user.getBalance());
     }
 
     @Test
@@ -313,11 +313,11 @@ class UserMapperTest
     {
         User guest = userMapper.createGuestUser("Test", "Guest", "testguest@test.dk", 12341234, "Street", 2000);
 
-        boolean result = userMapper.updateUserBalance(guest.getUserId(), 100.0);
+        boolean result = userMapper.updateUserBalance(guest.getUserId(), 10000);
 
         assertFalse(result);
         User retrieved = userMapper.getUserById(guest.getUserId());
-        assertEquals(0.0, retrieved.getBalance());
+        assertEquals(0, retrieved.getBalance());
     }
 
     @Test
@@ -389,6 +389,24 @@ class UserMapperTest
         assertEquals("Aalborg", retrieved.getCity());
     }
 
+    @Test
+    void testCreateUserWithKnownZipcodeKeepsStoredCity() throws DatabaseException
+    {
+        User newUser = userMapper.createUser(
+                "Known",
+                "Zip",
+                "known@test.dk",
+                "pass",
+                13131313,
+                "Kendtvej 2",
+                2100,
+                "Kbh Ø"
+        );
+
+        assertEquals("København Ø", newUser.getCity());
+        assertEquals("København Ø", userMapper.getUserById(newUser.getUserId()).getCity());
+    }
+
     @Test
     void testCreateUserWithEmailThatAlreadyExist()
     {
@@ -419,4 +437,18 @@ class UserMapperTest
         assertEquals(5000, updated.getZipCode());
         assertEquals("Odense", updated.getCity());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIsAdminFollowsRoleChanges() throws DatabaseException
+    {
+        assertTrue(userMapper.isAdmin(3));
+        assertFalse(userMapper.isAdmin(1));
+        assertFalse(userMapper.isAdmin(999));
+
+        User user = userMapper.getUserById(1);
+        user.setAdmin(true);
+        userMapper.updateUser(user);
+
+        assertTrue(userMapper.isAdmin(1));
+    }
+}
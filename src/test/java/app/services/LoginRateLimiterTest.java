@@ -0,0 +1,116 @@
+package app.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest
+{
+    private long now = 0;
+    private final LoginRateLimiter limiter = new LoginRateLimiter(3, 60_000, () -> now);
+
+    @Test
+    void testBlocksAfterMaxAttempts()
+    {
+        assertTrue(limiter.tryAcquire("john@admin.dk"));
+        assertTrue(limiter.tryAcquire("john@admin.dk"));
+        assertTrue(limiter.tryAcquire("JOHN@admin.dk "));
+        assertFalse(limiter.tryAcquire("john@admin.dk"));
+
+        assertTrue(limiter.tryAcquire("jane@admin.dk"));
+    }
+
+    @Test
+    void testWindowExpires()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            limiter.tryAcquire("john@admin.dk");
+        }
+        assertFalse(limiter.tryAcquire("john@admin.dk"));
+
+        now += TimeUnit.MINUTES.toNanos(1);
+        assertTrue(limiter.tryAcquire("john@admin.dk"));
+    }
+
+    @Test
+    void testResetClearsAttempts()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            limiter.tryAcquire("john@admin.dk");
+        }
+        limiter.reset("john@admin.dk");
+
+        assertTrue(limiter.tryAcquire("john@admin.dk"));
+    }
+
+    @Test
+    void testNewEmailCanLogInAfterCapIsReached()
+    {
+        LoginRateLimiter capped = new LoginRateLimiter(3, 60_000, 2, () -> now);
+        assertTrue(capped.tryAcquire("a@admin.dk"));
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(capped.tryAcquire("b@admin.dk"));
+
+        assertTrue(capped.tryAcquire("c@admin.dk"));
+        assertEquals(2, capped.getTrackedEmails());
+
+        // a had the oldest window and was dropped, so it starts over
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(capped.tryAcquire("a@admin.dk"));
+        }
+        assertFalse(capped.tryAcquire("a@admin.dk"));
+        assertEquals(2, capped.getTrackedEmails());
+    }
+
+    @Test
+    void testFloodOfNewEmailsDoesNotLockOutAnyone()
+    {
+        LoginRateLimiter capped = new LoginRateLimiter(3, 60_000, 100, () -> now);
+        for (int i = 0; i < 1000; i++)
+        {
+            capped.tryAcquire("random" + i + "@spam.dk");
+        }
+
+        assertTrue(capped.tryAcquire("john@admin.dk"));
+        assertEquals(100, capped.getTrackedEmails());
+    }
+
+    @Test
+    void testDropsExpiredWindowsFromTheFront()
+    {
+        limiter.tryAcquire("a@admin.dk");
+        now += TimeUnit.SECONDS.toNanos(10);
+        limiter.tryAcquire("b@admin.dk");
+
+        now += TimeUnit.SECONDS.toNanos(50);
+        limiter.tryAcquire("c@admin.dk");
+        assertEquals(2, limiter.getTrackedEmails());
+
+        now += TimeUnit.SECONDS.toNanos(15);
+        limiter.tryAcquire("d@admin.dk");
+        assertEquals(2, limiter.getTrackedEmails());
+    }
+
+    @Test
+    void testRestartedWindowMovesToTheBack()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            limiter.tryAcquire("a@admin.dk");
+        }
+        now += TimeUnit.SECONDS.toNanos(30);
+        limiter.tryAcquire("b@admin.dk");
+
+        // a expires and starts over behind b, so b expiring at 90 s must still be dropped
+        now += TimeUnit.SECONDS.toNanos(40);
+        assertTrue(limiter.tryAcquire("a@admin.dk"));
+        now += TimeUnit.SECONDS.toNanos(25);
+        limiter.tryAcquire("c@admin.dk");
+        assertEquals(2, limiter.getTrackedEmails());
+    }
+}
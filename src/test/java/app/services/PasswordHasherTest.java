@@ -0,0 +1,54 @@
+package app.services;
+
+import app.entities.User;
+import app.exceptions.DatabaseException;
+import app.persistence.UserMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest
+{
+    private final PasswordHasher passwordHasher = new PasswordHasher(2, 4, 10_000);
+    private int lookups = 0;
+
+    @AfterEach
+    void tearDown()
+    {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void testHashAndVerify() throws DatabaseException
+    {
+        String hashed = passwordHasher.hash("Password1");
+
+        assertNotEquals("Password1", hashed);
+        assertTrue(passwordHasher.verify("Password1", hashed));
+        assertFalse(passwordHasher.verify("Password2", hashed));
+    }
+
+    @Test
+    void testRateLimitedLoginSkipsLookupAndHash() throws DatabaseException
+    {
+        String hashed = passwordHasher.hash("Password1");
+        UserMapper userMapper = new UserMapper(null)
+        {
+            @Override
+            public User getUserByEmail(String email)
+            {
+                lookups++;
+                return new User(1, "John", "Admin", email, hashed, 12345678, "Admin Street 1234", 2100, "København Ø", 0, false, false);
+            }
+        };
+        UserServiceImpl userService = new UserServiceImpl(userMapper, passwordHasher, new LoginRateLimiter(2, 60_000, () -> 0L));
+
+        assertThrows(DatabaseException.class, () -> userService.authenticate("john@admin.dk", "Wrong1234"));
+        assertThrows(DatabaseException.class, () -> userService.authenticate("john@admin.dk", "Wrong1234"));
+        DatabaseException blocked = assertThrows(DatabaseException.class, () -> userService.authenticate("john@admin.dk", "Password1"));
+
+        assertEquals(2, lookups);
+        assertTrue(blocked.getMessage().startsWith("For mange loginforsøg"));
+    }
+}
@@ -8,7 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class UserServiceImplTest
 {
-    private final UserServiceImpl service = new UserServiceImpl(null);
+    private final UserServiceImpl service = new UserServiceImpl(null, null, new LoginRateLimiter());
 
     @Test
     void testRegisterWithPasswordNotMatching()
@@ -176,7 +176,7 @@ public class UserServiceImplTest
     @Test
     void testAddNegativeBalance() throws DatabaseException
     {
-        double balance = -500.00;
+        long balance = -50000;
         int userId = 1;
         assertThrows(IllegalArgumentException.class, () -> service.addBalance(userId, balance));
     }